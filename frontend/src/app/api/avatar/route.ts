@@ -12,13 +12,31 @@ export async function GET(request: NextRequest) {
       return NextResponse.json({ error: 'Unauthorized' }, { status: 401 });
     }
 
-    const response = await fetch(`${USER_SERVICE_URL}/api/v1/users/avatar`, {
+    const headers: Record<string, string> = {
+      Authorization: `Bearer ${session.accessToken}`,
+    };
+    for (const name of ['if-none-match', 'range', 'if-range']) {
+      const value = request.headers.get(name);
+      if (value) {
+        headers[name] = value;
+      }
+    }
+
+    const size = request.nextUrl.searchParams.get('size');
+    const query = size ? `?size=${encodeURIComponent(size)}` : '';
+
+    const response = await fetch(`${USER_SERVICE_URL}/api/v1/users/avatar${query}`, {
       method: 'GET',
-      headers: {
-        Authorization: `Bearer ${session.accessToken}`,
-      },
+      headers,
     });
 
+    if (response.status === 304 || response.status === 416) {
+      return new NextResponse(null, {
+        status: response.status,
+        headers: passThroughHeaders(response),
+      });
+    }
+
     if (!response.ok) {
       if (response.status === 404) {
         return NextResponse.json({ error: 'Avatar not found' }, { status: 404 });
@@ -26,14 +44,9 @@ export async function GET(request: NextRequest) {
       throw new Error('Failed to fetch avatar');
     }
 
-    const blob = await response.blob();
-    const contentType = response.headers.get('content-type') || 'image/jpeg';
-
-    return new NextResponse(blob, {
-      headers: {
-        'Content-Type': contentType,
-        'Cache-Control': 'public, max-age=3600',
-      },
+    return new NextResponse(response.body, {
+      status: response.status,
+      headers: passThroughHeaders(response),
     });
   } catch (error) {
     console.error('Avatar fetch error:', error);
@@ -43,3 +56,14 @@ export async function GET(request: NextRequest) {
     );
   }
 }
+
+function passThroughHeaders(response: Response): Headers {
+  const headers = new Headers();
+  for (const name of ['content-type', 'content-length', 'content-range', 'accept-ranges', 'etag', 'cache-control']) {
+    const value = response.headers.get(name);
+    if (value) {
+      headers.set(name, value);
+    }
+  }
+  return headers;
+}
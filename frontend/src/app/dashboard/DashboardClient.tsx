@@ -4,7 +4,7 @@ import { useEffect, useState, useCallback } from 'react';
 import { PreferencesModal } from '@/components/PreferencesModal';
 import { preferencesApi, UserPreferences } from '@/lib/api/preferences';
 import { budgetApi, Budget, expenseTypeApi, ExpenseType } from '@/lib/api/budget';
-import { transactionApi } from '@/lib/api/transaction';
+import { transactionApi, DashboardSummary } from '@/lib/api/transaction';
 import { ExpenseSummaryWidget } from '@/components/dashboard/ExpenseSummaryWidget';
 import { EmergencyFundWidget } from '@/components/dashboard/EmergencyFundWidget';
 import { ExpenseDistributionChart } from '@/components/dashboard/ExpenseDistributionChart';
@@ -73,23 +73,25 @@ export function DashboardClient({ userEmail }: DashboardClientProps) {
 
       const previousYear = currentYear - 1;
 
-      const [
-        budget,
-        expenseTypes,
+      const [budget, expenseTypes, dashboard] = await Promise.all([
+        budgetApi.getByYear(currentYear).catch(() => null),
+        expenseTypeApi.list().catch(() => []),
+        transactionApi.getDashboard(currentYear, currentMonth).catch((): DashboardSummary => ({
+          monthlySummary: { totalExpenses: 0, transactionCount: 0, year: currentYear, month: currentMonth },
+          expenseTypeSummary: [],
+          currentYearSummary: { year: currentYear, monthlyTotals: {}, yearlyTotal: 0 },
+          previousYearSummary: { year: previousYear, monthlyTotals: {}, yearlyTotal: 0 },
+          recentTransactions: [],
+        })),
+      ]);
+
+      const {
         monthlySummary,
         expenseTypeSummary,
         currentYearSummary,
         previousYearSummary,
         recentTransactions,
-      ] = await Promise.all([
-        budgetApi.getByYear(currentYear).catch(() => null),
-        expenseTypeApi.list().catch(() => []),
-        transactionApi.getMonthlySummary(currentYear, currentMonth).catch(() => ({ totalExpenses: 0, transactionCount: 0, year: currentYear, month: currentMonth })),
-        transactionApi.getExpenseTypeSummary(currentYear, currentMonth).catch(() => []),
-        transactionApi.getYearlySummary(currentYear).catch(() => ({ year: currentYear, monthlyTotals: {}, yearlyTotal: 0 })),
-        transactionApi.getYearlySummary(previousYear).catch(() => ({ year: previousYear, monthlyTotals: {}, yearlyTotal: 0 })),
-        transactionApi.list({ page: 1, pageSize: 5 }).catch(() => ({ content: [], page: 1, pageSize: 5, totalElements: 0, totalPages: 0 })),
-      ]);
+      } = dashboard;
 
       // Calculate budget total for current month
       let budgetTotal = 0;
@@ -125,7 +127,7 @@ export function DashboardClient({ userEmail }: DashboardClientProps) {
       });
 
       // Format recent transactions
-      const formattedTransactions = recentTransactions.content.map((t: any) => {
+      const formattedTransactions = recentTransactions.map((t: any) => {
         const expenseType = expenseTypes.find((et: ExpenseType) => et.id === t.expenseTypeId);
         return {
           id: t.id,
@@ -281,9 +283,14 @@ export function DashboardClient({ userEmail }: DashboardClientProps) {
     }
 
     try {
-      const monthsToFetch = Array.from({ length: targetMonth }, (_, i) => i + 1);
-      const spendingByMonth = await Promise.all(
-        monthsToFetch.map(m => transactionApi.getExpenseTypeSummary(year, m).catch(() => []))
+      const toMonth = `${year}-${String(targetMonth).padStart(2, '0')}`;
+      const matrix = await transactionApi.getExpenseTypeMatrix(`${year}-01`, toMonth)
+        .catch(() => ({ months: [], expenseTypeIds: [], amounts: [] as number[][] }));
+      const spendingByMonth = Array.from({ length: targetMonth }, (_, i) =>
+        matrix.expenseTypeIds.map((expenseTypeId, j) => ({
+          expenseTypeId,
+          totalAmount: matrix.amounts[i]?.[j] ?? 0,
+        }))
       );
 
       const items: AccumulationItem[] = accumulatingItems.map(budgetItem => {
@@ -32,7 +32,7 @@ export default function AppShell({ children }: { children: React.ReactNode }) {
     try {
       const [prefs, avatar] = await Promise.all([
         preferencesApi.getPreferences(),
-        preferencesApi.getAvatarUrl(),
+        preferencesApi.getAvatarUrl(256),
       ]);
       setCurrentPreferences(prefs);
       setAvatarUrl(avatar);
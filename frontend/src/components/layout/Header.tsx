@@ -39,7 +39,7 @@ export default function Header({ onMenuClick, onPreferencesClick }: HeaderProps)
 
   const loadAvatar = async () => {
     try {
-      const url = await preferencesApi.getAvatarUrl();
+      const url = await preferencesApi.getAvatarUrl(64);
       setAvatarUrl(url);
     } catch (error) {
       // Avatar not found is expected, use fallback
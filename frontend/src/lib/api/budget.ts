@@ -20,6 +20,20 @@ export interface ExpenseTypeRequest {
   accumulate?: boolean;
 }
 
+export interface CarryOverEntry {
+  expenseTypeId: string;
+  expenseTypeName: string | null;
+  month: number;
+  budgeted: number;
+  spent: number;
+  balance: number;
+}
+
+export interface CarryOver {
+  year: number;
+  entries: CarryOverEntry[];
+}
+
 // Budget interfaces
 export interface Budget {
   id: string;
@@ -57,6 +71,44 @@ export interface CreateBudgetRequest {
   items: BudgetItemRequest[];
 }
 
+export interface BurnRateEntry {
+  expenseTypeId: string;
+  expenseTypeName: string | null;
+  month: number;
+  planned: number;
+  actual: number;
+  remaining: number;
+}
+
+export interface BurnRate {
+  year: number;
+  totalPlanned: number;
+  totalActual: number;
+  totalRemaining: number;
+  entries: BurnRateEntry[];
+}
+
+export interface ForecastEntry {
+  expenseTypeId: string;
+  expenseTypeName: string | null;
+  planned: number;
+  actualToDate: number | null;
+  monthlyRunRate: number | null;
+  projectedYearEnd: number;
+  projectedSavings: number;
+}
+
+export interface Forecast {
+  year: number;
+  asOf: string;
+  totalPlanned: number;
+  totalActualToDate: number | null;
+  totalProjectedYearEnd: number;
+  totalProjectedSavings: number;
+  complete: boolean;
+  entries: ForecastEntry[];
+}
+
 export interface CopyBudgetParams {
   fromYear: number;
   toYear: number;
@@ -68,6 +120,11 @@ export const expenseTypeApi = {
     return apiClient.get<ExpenseType[]>('budget', '/api/v1/expense-types');
   },
 
+  async getCarryOver(year?: number): Promise<CarryOver> {
+    const query = year !== undefined ? `?year=${year}` : '';
+    return apiClient.get<CarryOver>('budget', `/api/v1/expense-types/carry-over${query}`);
+  },
+
   async getById(id: string): Promise<ExpenseType> {
     return apiClient.get<ExpenseType>('budget', `/api/v1/expense-types/${id}`);
   },
@@ -95,6 +152,14 @@ export const budgetApi = {
     return apiClient.get<Budget>('budget', `/api/v1/budgets/${year}`);
   },
 
+  async getBurnRate(year: number): Promise<BurnRate> {
+    return apiClient.get<BurnRate>('budget', `/api/v1/budgets/${year}/burn-rate`);
+  },
+
+  async getForecast(year: number): Promise<Forecast> {
+    return apiClient.get<Forecast>('budget', `/api/v1/budgets/${year}/forecast`);
+  },
+
   async create(data: CreateBudgetRequest): Promise<Budget> {
     return apiClient.post<Budget>('budget', '/api/v1/budgets', data);
   },
@@ -45,9 +45,9 @@ export const preferencesApi = {
     return res.json();
   },
 
-  async getAvatarUrl(): Promise<string | null> {
+  async getAvatarUrl(size?: number): Promise<string | null> {
     try {
-      const response = await fetch('/api/avatar', {
+      const response = await fetch(size ? `/api/avatar?size=${size}` : '/api/avatar', {
         method: 'GET',
         credentials: 'include',
       });
@@ -41,12 +41,26 @@ export interface ExpenseTypeSummary {
   totalAmount: number;
 }
 
+export interface ExpenseTypeMatrix {
+  months: string[]; // YYYY-MM
+  expenseTypeIds: string[];
+  amounts: number[][]; // amounts[monthIndex][expenseTypeIndex]
+}
+
 export interface YearlySummary {
   year: number;
   monthlyTotals: Record<number, number>; // month -> total
   yearlyTotal: number;
 }
 
+export interface DashboardSummary {
+  monthlySummary: MonthlySummary;
+  expenseTypeSummary: ExpenseTypeSummary[];
+  currentYearSummary: YearlySummary;
+  previousYearSummary: YearlySummary;
+  recentTransactions: Transaction[];
+}
+
 export interface TransactionFilters {
   startDate?: string;
   endDate?: string;
@@ -104,6 +118,11 @@ export const transactionApi = {
     return apiClient.get<ExpenseTypeSummary[]>('transaction', `/api/v1/transactions/summary/by-type?${params}`);
   },
 
+  async getExpenseTypeMatrix(from: string, to: string): Promise<ExpenseTypeMatrix> {
+    const params = new URLSearchParams({ from, to });
+    return apiClient.get<ExpenseTypeMatrix>('transaction', `/api/v1/transactions/summary/by-type-range?${params}`);
+  },
+
   async getYearlySummary(year: number): Promise<YearlySummary> {
     const params = new URLSearchParams({
       year: year.toString(),
@@ -111,6 +130,14 @@ export const transactionApi = {
     return apiClient.get<YearlySummary>('transaction', `/api/v1/transactions/summary/yearly?${params}`);
   },
 
+  async getDashboard(year: number, month: number): Promise<DashboardSummary> {
+    const params = new URLSearchParams({
+      year: year.toString(),
+      month: month.toString(),
+    });
+    return apiClient.get<DashboardSummary>('transaction', `/api/v1/transactions/dashboard?${params}`);
+  },
+
   async getSpentByExpenseType(expenseTypeId: string, year: number, month: number): Promise<number> {
     const params = new URLSearchParams({
       year: year.toString(),
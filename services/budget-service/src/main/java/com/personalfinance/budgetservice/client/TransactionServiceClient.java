@@ -1,20 +1,46 @@
 package com.personalfinance.budgetservice.client;
 
+import com.personalfinance.budgetservice.dto.ExpenseTypeMatrixResponse;
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.rest.client.annotation.RegisterClientHeaders;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 @Path("/api/v1/transactions")
 @RegisterRestClient(configKey = "transaction-service")
+@RegisterClientHeaders
 @Produces(MediaType.APPLICATION_JSON)
 public interface TransactionServiceClient {
 
     @GET
     @Path("/check-budget-item/{budgetItemId}")
     Boolean hasBudgetItemTransactions(@PathParam("budgetItemId") UUID budgetItemId);
+
+    /**
+     * Spend per month and expense type of the calling user; the caller's Authorization header is propagated
+     */
+    @GET
+    @Path("/summary/by-type-range")
+    ExpenseTypeMatrixResponse getExpenseTypeMatrix(@QueryParam("from") String from, @QueryParam("to") String to);
+
+    @GET
+    @Path("/summary/by-type-range")
+    CompletionStage<ExpenseTypeMatrixResponse> getExpenseTypeMatrixAsync(@QueryParam("from") String from,
+                                                                         @QueryParam("to") String to);
+
+    @POST
+    @Path("/check-budget-items")
+    @Consumes(MediaType.APPLICATION_JSON)
+    List<UUID> getBudgetItemsWithTransactions(Set<UUID> budgetItemIds);
 }
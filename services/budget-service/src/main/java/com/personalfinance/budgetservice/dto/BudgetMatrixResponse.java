@@ -0,0 +1,15 @@
+package com.personalfinance.budgetservice.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Effective budget amounts in cents: amountsInCents[m][j] is the amount of expenseTypeIds.get(j) in month m + 1
+ */
+public record BudgetMatrixResponse(
+    UUID budgetId,
+    Integer year,
+    List<UUID> expenseTypeIds,
+    long[][] amountsInCents,
+    long[] monthTotalsInCents
+) {}
@@ -0,0 +1,13 @@
+package com.personalfinance.budgetservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record BurnRateEntry(
+    UUID expenseTypeId,
+    String expenseTypeName,
+    Integer month,
+    BigDecimal planned,
+    BigDecimal actual,
+    BigDecimal remaining
+) {}
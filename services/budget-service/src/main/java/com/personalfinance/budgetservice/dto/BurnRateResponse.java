@@ -0,0 +1,12 @@
+package com.personalfinance.budgetservice.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record BurnRateResponse(
+    Integer year,
+    BigDecimal totalPlanned,
+    BigDecimal totalActual,
+    BigDecimal totalRemaining,
+    List<BurnRateEntry> entries
+) {}
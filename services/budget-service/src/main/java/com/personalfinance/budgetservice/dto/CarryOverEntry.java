@@ -0,0 +1,13 @@
+package com.personalfinance.budgetservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record CarryOverEntry(
+    UUID expenseTypeId,
+    String expenseTypeName,
+    Integer month,
+    BigDecimal budgeted,
+    BigDecimal spent,
+    BigDecimal balance
+) {}
@@ -0,0 +1,8 @@
+package com.personalfinance.budgetservice.dto;
+
+import java.util.List;
+
+public record CarryOverResponse(
+    Integer year,
+    List<CarryOverEntry> entries
+) {}
@@ -0,0 +1,15 @@
+package com.personalfinance.budgetservice.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Columnar month x expense type spend matrix from transaction-service: amounts.get(i).get(j) is the spend
+ * of expenseTypeIds.get(j) in months.get(i)
+ */
+public record ExpenseTypeMatrixResponse(
+    List<String> months,
+    List<UUID> expenseTypeIds,
+    List<List<BigDecimal>> amounts
+) {}
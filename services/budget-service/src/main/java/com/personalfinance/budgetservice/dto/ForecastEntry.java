@@ -0,0 +1,14 @@
+package com.personalfinance.budgetservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record ForecastEntry(
+    UUID expenseTypeId,
+    String expenseTypeName,
+    BigDecimal planned,
+    BigDecimal actualToDate,
+    BigDecimal monthlyRunRate,
+    BigDecimal projectedYearEnd,
+    BigDecimal projectedSavings
+) {}
@@ -0,0 +1,20 @@
+package com.personalfinance.budgetservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Year-end projection; when complete is false, actuals missed the latency budget and
+ * some or all projections fall back to the planned amounts
+ */
+public record ForecastResponse(
+    Integer year,
+    LocalDate asOf,
+    BigDecimal totalPlanned,
+    BigDecimal totalActualToDate,
+    BigDecimal totalProjectedYearEnd,
+    BigDecimal totalProjectedSavings,
+    Boolean complete,
+    List<ForecastEntry> entries
+) {}
@@ -1,6 +1,8 @@
 package com.personalfinance.budgetservice.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.UuidGenerator;
+
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -11,7 +13,7 @@ import java.util.UUID;
 public class Budget {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
     public UUID id;
 
     @Column(name = "user_email", nullable = false, length = 255)
@@ -1,6 +1,8 @@
 package com.personalfinance.budgetservice.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.UuidGenerator;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -10,7 +12,7 @@ import java.util.UUID;
 public class BudgetItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
     public UUID id;
 
     @Column(name = "budget_id", nullable = false)
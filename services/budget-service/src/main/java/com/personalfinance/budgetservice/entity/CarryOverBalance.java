@@ -0,0 +1,63 @@
+package com.personalfinance.budgetservice.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Running (budgeted - spent) balance of an accumulating expense type at the end of a month
+ */
+@Entity
+@Table(name = "carry_over_balances", schema = "budget_schema")
+@IdClass(CarryOverBalance.Key.class)
+public class CarryOverBalance {
+
+    @Id
+    @Column(name = "user_email", nullable = false, length = 255)
+    public String userEmail;
+
+    @Id
+    @Column(name = "year", nullable = false)
+    public Integer year;
+
+    @Id
+    @Column(name = "month", nullable = false)
+    public Integer month;
+
+    @Id
+    @Column(name = "expense_type_id", nullable = false)
+    public UUID expenseTypeId;
+
+    @Column(name = "budgeted", nullable = false, precision = 14, scale = 2)
+    public BigDecimal budgeted = BigDecimal.ZERO;
+
+    @Column(name = "spent", nullable = false, precision = 14, scale = 2)
+    public BigDecimal spent = BigDecimal.ZERO;
+
+    @Column(name = "balance", nullable = false, precision = 14, scale = 2)
+    public BigDecimal balance = BigDecimal.ZERO;
+
+    public static class Key implements Serializable {
+        public String userEmail;
+        public Integer year;
+        public Integer month;
+        public UUID expenseTypeId;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(userEmail, key.userEmail)
+                && Objects.equals(year, key.year)
+                && Objects.equals(month, key.month)
+                && Objects.equals(expenseTypeId, key.expenseTypeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userEmail, year, month, expenseTypeId);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.personalfinance.budgetservice.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Per-user bookkeeping for carry-over balances: the earliest month whose balances are stale
+ * (null when up to date), the last month they were computed through, and a version bumped on every change
+ * so a refresh can tell whether it raced one
+ */
+@Entity
+@Table(name = "carry_over_state", schema = "budget_schema")
+public class CarryOverState {
+
+    @Id
+    @Column(name = "user_email", nullable = false, length = 255)
+    public String userEmail;
+
+    @Column(name = "dirty_from")
+    public LocalDate dirtyFrom;
+
+    @Column(name = "computed_through")
+    public LocalDate computedThrough;
+
+    @Column(name = "version", nullable = false)
+    public Long version = 0L;
+}
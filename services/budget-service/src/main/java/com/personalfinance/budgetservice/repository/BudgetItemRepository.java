@@ -21,4 +21,21 @@ public class BudgetItemRepository implements PanacheRepository<BudgetItem> {
     public void deleteByBudgetId(UUID budgetId) {
         delete("budgetId", budgetId);
     }
+
+    /**
+     * Copy all items of one budget into another with a single INSERT ... SELECT
+     */
+    public int copyItems(UUID sourceBudgetId, UUID targetBudgetId) {
+        return getEntityManager()
+            .createNativeQuery("INSERT INTO budget_schema.budget_items " +
+                        "(id, budget_id, expense_type_id, amount, is_one_time, applicable_month, created_at, updated_at) " +
+                        "SELECT budget_schema.uuid_generate_v7(), :targetBudgetId, expense_type_id, amount, " +
+                        "       is_one_time, applicable_month, NOW(), NOW() " +
+                        "FROM budget_schema.budget_items " +
+                        "WHERE budget_id = :sourceBudgetId " +
+                        "ORDER BY id")
+            .setParameter("targetBudgetId", targetBudgetId)
+            .setParameter("sourceBudgetId", sourceBudgetId)
+            .executeUpdate();
+    }
 }
@@ -4,12 +4,17 @@ import com.personalfinance.budgetservice.entity.Budget;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @ApplicationScoped
 public class BudgetRepository implements PanacheRepository<Budget> {
 
+    private static final String BUDGET_ROWS_QUERY = "SELECT b, i, e FROM Budget b " +
+        "LEFT JOIN BudgetItem i ON i.budgetId = b.id " +
+        "LEFT JOIN ExpenseType e ON e.id = i.expenseTypeId ";
+
     public List<Budget> findByUserEmail(String userEmail) {
         return list("userEmail = ?1 order by year desc", userEmail);
     }
@@ -19,6 +24,99 @@ public class BudgetRepository implements PanacheRepository<Budget> {
             .firstResultOptional();
     }
 
+    /**
+     * Flat (Budget, BudgetItem, ExpenseType) rows for a user's budgets, newest year first.
+     * Budgets without items yield a single row with null item and expense type.
+     */
+    public List<Object[]> findRowsByUserEmail(String userEmail) {
+        return getEntityManager()
+            .createQuery(BUDGET_ROWS_QUERY + "WHERE b.userEmail = :userEmail ORDER BY b.year DESC, i.id", Object[].class)
+            .setParameter("userEmail", userEmail)
+            .getResultList();
+    }
+
+    /**
+     * Flat (Budget, BudgetItem, ExpenseType) rows for one of a user's budgets
+     */
+    public List<Object[]> findRowsByUserEmailAndYear(String userEmail, Integer year) {
+        return getEntityManager()
+            .createQuery(BUDGET_ROWS_QUERY + "WHERE b.userEmail = :userEmail AND b.year = :year ORDER BY i.id", Object[].class)
+            .setParameter("userEmail", userEmail)
+            .setParameter("year", year)
+            .getResultList();
+    }
+
+    /**
+     * Copy the budgets (with their items) of many users from one year to another in one statement.
+     * Users without a source budget or with an existing target budget are skipped.
+     *
+     * @return the users whose budget was copied
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> copyBudgets(Collection<String> userEmails, Integer fromYear, Integer toYear) {
+        return getEntityManager()
+            .createNativeQuery("WITH created AS (" +
+                        "  INSERT INTO budget_schema.budgets (id, user_email, year, created_at, updated_at) " +
+                        "  SELECT budget_schema.uuid_generate_v7(), user_email, :toYear, NOW(), NOW() " +
+                        "  FROM budget_schema.budgets " +
+                        "  WHERE year = :fromYear AND user_email IN (:userEmails) " +
+                        "  ON CONFLICT (user_email, year) DO NOTHING " +
+                        "  RETURNING id, user_email" +
+                        "), copied AS (" +
+                        "  INSERT INTO budget_schema.budget_items " +
+                        "  (id, budget_id, expense_type_id, amount, is_one_time, applicable_month, created_at, updated_at) " +
+                        "  SELECT budget_schema.uuid_generate_v7(), c.id, i.expense_type_id, i.amount, " +
+                        "         i.is_one_time, i.applicable_month, NOW(), NOW() " +
+                        "  FROM created c " +
+                        "  JOIN budget_schema.budgets s ON s.user_email = c.user_email AND s.year = :fromYear " +
+                        "  JOIN budget_schema.budget_items i ON i.budget_id = s.id" +
+                        ") " +
+                        "SELECT user_email FROM created")
+            .setParameter("userEmails", userEmails)
+            .setParameter("fromYear", fromYear)
+            .setParameter("toYear", toYear)
+            .getResultList();
+    }
+
+    /**
+     * Flat (Budget, BudgetItem, ExpenseType) rows for a user's budgets between two years (inclusive)
+     */
+    public List<Object[]> findRowsByUserEmailAndYearRange(String userEmail, Integer fromYear, Integer toYear) {
+        return getEntityManager()
+            .createQuery(BUDGET_ROWS_QUERY + "WHERE b.userEmail = :userEmail AND b.year >= :fromYear AND b.year <= :toYear " +
+                        "ORDER BY b.year, i.id", Object[].class)
+            .setParameter("userEmail", userEmail)
+            .setParameter("fromYear", fromYear)
+            .setParameter("toYear", toYear)
+            .getResultList();
+    }
+
+    /**
+     * Year of a user's first budget, or null if they have none
+     */
+    public Integer findFirstYear(String userEmail) {
+        return getEntityManager()
+            .createQuery("SELECT MIN(b.year) FROM Budget b WHERE b.userEmail = :userEmail", Integer.class)
+            .setParameter("userEmail", userEmail)
+            .getSingleResult();
+    }
+
+    /**
+     * Page through users who have a budget for one year but none for another, ordered by email
+     */
+    public List<String> findUserEmailsWithoutBudget(Integer fromYear, Integer toYear, String afterUserEmail, int limit) {
+        return getEntityManager()
+            .createQuery("SELECT b.userEmail FROM Budget b " +
+                        "WHERE b.year = :fromYear AND b.userEmail > :afterUserEmail " +
+                        "AND NOT EXISTS (SELECT 1 FROM Budget n WHERE n.userEmail = b.userEmail AND n.year = :toYear) " +
+                        "ORDER BY b.userEmail", String.class)
+            .setParameter("fromYear", fromYear)
+            .setParameter("toYear", toYear)
+            .setParameter("afterUserEmail", afterUserEmail)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
     public boolean existsByUserEmailAndYear(String userEmail, Integer year) {
         return count("userEmail = ?1 and year = ?2", userEmail, year) > 0;
     }
@@ -0,0 +1,155 @@
+package com.personalfinance.budgetservice.repository;
+
+import com.personalfinance.budgetservice.entity.CarryOverBalance;
+import com.personalfinance.budgetservice.entity.CarryOverState;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+@ApplicationScoped
+public class CarryOverBalanceRepository implements PanacheRepositoryBase<CarryOverBalance, CarryOverBalance.Key> {
+
+    /**
+     * Create the state row of a user, stale from the given date, unless it exists
+     */
+    public void ensureState(String userEmail, LocalDate dirtyFrom) {
+        getEntityManager()
+            .createNativeQuery("INSERT INTO budget_schema.carry_over_state (user_email, dirty_from, version) " +
+                        "VALUES (:userEmail, :dirtyFrom, 0) ON CONFLICT (user_email) DO NOTHING")
+            .setParameter("userEmail", userEmail)
+            .setParameter("dirtyFrom", dirtyFrom)
+            .executeUpdate();
+    }
+
+    public CarryOverState findState(String userEmail) {
+        return getEntityManager().find(CarryOverState.class, userEmail);
+    }
+
+    public CarryOverState lockState(String userEmail) {
+        return getEntityManager().find(CarryOverState.class, userEmail, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    /**
+     * Mark a user's balances stale from the given date on
+     */
+    public void markDirty(String userEmail, LocalDate from) {
+        getEntityManager()
+            .createNativeQuery("UPDATE budget_schema.carry_over_state " +
+                        "SET dirty_from = LEAST(COALESCE(dirty_from, :from), :from), version = version + 1 " +
+                        "WHERE user_email = :userEmail")
+            .setParameter("from", from)
+            .setParameter("userEmail", userEmail)
+            .executeUpdate();
+    }
+
+    /**
+     * Mark every user's balances stale from the given date on
+     */
+    public void markAllDirty(LocalDate from) {
+        getEntityManager()
+            .createNativeQuery("UPDATE budget_schema.carry_over_state " +
+                        "SET dirty_from = LEAST(COALESCE(dirty_from, :from), :from), version = version + 1")
+            .setParameter("from", from)
+            .executeUpdate();
+    }
+
+    /**
+     * Lock the spend change cursor for a catch-up
+     *
+     * @return the last spend change applied, null before the first catch-up
+     */
+    public Long lockSpendChangeCursor() {
+        return toLong(getEntityManager()
+            .createNativeQuery("SELECT last_sequence FROM budget_schema.spend_change_cursor WHERE id = 1 FOR UPDATE")
+            .getSingleResult());
+    }
+
+    public void updateSpendChangeCursor(long lastSequence) {
+        getEntityManager()
+            .createNativeQuery("UPDATE budget_schema.spend_change_cursor SET last_sequence = :lastSequence WHERE id = 1")
+            .setParameter("lastSequence", lastSequence)
+            .executeUpdate();
+    }
+
+    /**
+     * Highest spend change transaction-service has pruned from its log
+     */
+    public long findSpendChangesPrunedThrough() {
+        return toLong(getEntityManager()
+            .createNativeQuery("SELECT pruned_through FROM transaction_schema.spend_change_pruning WHERE id = 1")
+            .getSingleResult());
+    }
+
+    /**
+     * Highest spend change after the given one that was recorded at least {@code settleSeconds} ago.
+     * Sequences are handed out before commit, so a recent change may still be followed by a lower one.
+     *
+     * @return the change, or {@code after} when there is none
+     */
+    public long findLastSettledSpendChange(long after, long settleSeconds) {
+        return toLong(getEntityManager()
+            .createNativeQuery("SELECT COALESCE(MAX(sequence), :after) FROM transaction_schema.spend_changes " +
+                        "WHERE sequence > :after AND changed_at < clock_timestamp() - make_interval(secs => :settleSeconds)")
+            .setParameter("after", after)
+            .setParameter("settleSeconds", settleSeconds)
+            .getSingleResult());
+    }
+
+    /**
+     * Mark balances stale from the earliest month of each user's spend changes after the given one.
+     * A change without a month marks all of that user's balances stale from the given date.
+     *
+     * @return the number of users marked
+     */
+    public int markDirtyFromSpendChanges(long after, LocalDate fromStart) {
+        return getEntityManager()
+            .createNativeQuery("UPDATE budget_schema.carry_over_state s " +
+                        "SET dirty_from = LEAST(COALESCE(s.dirty_from, c.dirty_from), c.dirty_from), version = s.version + 1 " +
+                        "FROM (" +
+                        "  SELECT user_email, CASE WHEN BOOL_OR(year IS NULL) THEN CAST(:fromStart AS DATE) " +
+                        "    ELSE MIN(make_date(year, month, 1)) END AS dirty_from " +
+                        "  FROM transaction_schema.spend_changes WHERE sequence > :after GROUP BY user_email" +
+                        ") c " +
+                        "WHERE s.user_email = c.user_email")
+            .setParameter("fromStart", fromStart)
+            .setParameter("after", after)
+            .executeUpdate();
+    }
+
+    /**
+     * Mark a user's balances up to date through the given month, in the transaction holding the state lock
+     */
+    public void markComputed(String userEmail, YearMonth through) {
+        getEntityManager()
+            .createNativeQuery("UPDATE budget_schema.carry_over_state SET dirty_from = NULL, computed_through = :through " +
+                        "WHERE user_email = :userEmail")
+            .setParameter("userEmail", userEmail)
+            .setParameter("through", through.atDay(1))
+            .executeUpdate();
+    }
+
+    public List<CarryOverBalance> findByUserEmailAndYear(String userEmail, Integer year) {
+        return list("userEmail = ?1 and year = ?2 order by month", userEmail, year);
+    }
+
+    public List<CarryOverBalance> findByUserEmailAndMonth(String userEmail, YearMonth month) {
+        return list("userEmail = ?1 and year = ?2 and month = ?3",
+            userEmail, month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * Delete a user's balances from the given month on
+     */
+    public long deleteFrom(String userEmail, YearMonth from) {
+        return delete("userEmail = ?1 and year * 12 + month >= ?2",
+            userEmail, from.getYear() * 12 + from.getMonthValue());
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+}
@@ -1,5 +1,6 @@
 package com.personalfinance.budgetservice.repository;
 
+import com.personalfinance.budgetservice.dto.ExpenseTypeResponse;
 import com.personalfinance.budgetservice.entity.ExpenseType;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -15,6 +16,27 @@ public class ExpenseTypeRepository implements PanacheRepository<ExpenseType> {
         return list("userEmail", userEmail);
     }
 
+    /**
+     * List a user's expense types with their deletability, counting budget item usage in the same query
+     */
+    public List<ExpenseTypeResponse> findResponsesByUserEmail(String userEmail) {
+        return getEntityManager()
+            .createQuery("SELECT new com.personalfinance.budgetservice.dto.ExpenseTypeResponse(" +
+                        "e.id, e.userEmail, e.name, e.icon, e.isMandatory, e.accumulate, " +
+                        "CASE WHEN COUNT(b.id) = 0 THEN true ELSE false END, e.createdAt, e.updatedAt) " +
+                        "FROM ExpenseType e " +
+                        "LEFT JOIN BudgetItem b ON b.expenseTypeId = e.id " +
+                        "WHERE e.userEmail = :userEmail " +
+                        "GROUP BY e.id, e.userEmail, e.name, e.icon, e.isMandatory, e.accumulate, e.createdAt, e.updatedAt",
+                ExpenseTypeResponse.class)
+            .setParameter("userEmail", userEmail)
+            .getResultList();
+    }
+
+    public List<ExpenseType> findAccumulatingByUserEmail(String userEmail) {
+        return list("userEmail = ?1 and accumulate = true", userEmail);
+    }
+
     public Optional<ExpenseType> findByUserEmailAndName(String userEmail, String name) {
         return find("userEmail = ?1 and name = ?2", userEmail, name).firstResultOptional();
     }
@@ -1,9 +1,15 @@
 package com.personalfinance.budgetservice.resource;
 
 import com.personalfinance.budgetservice.dto.BudgetItemRequest;
+import com.personalfinance.budgetservice.dto.BudgetMatrixResponse;
 import com.personalfinance.budgetservice.dto.BudgetRequest;
 import com.personalfinance.budgetservice.dto.BudgetResponse;
+import com.personalfinance.budgetservice.dto.BurnRateResponse;
+import com.personalfinance.budgetservice.dto.ForecastResponse;
+import com.personalfinance.budgetservice.service.BudgetMatrixService;
 import com.personalfinance.budgetservice.service.BudgetService;
+import com.personalfinance.budgetservice.service.BurnRateService;
+import com.personalfinance.budgetservice.service.ForecastService;
 import io.quarkus.security.Authenticated;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
@@ -35,6 +41,15 @@ public class BudgetResource {
     @Inject
     BudgetService service;
 
+    @Inject
+    BurnRateService burnRateService;
+
+    @Inject
+    BudgetMatrixService budgetMatrixService;
+
+    @Inject
+    ForecastService forecastService;
+
     public record CreateBudgetRequest(
         @Valid BudgetRequest budget,
         List<@Valid BudgetItemRequest> items
@@ -86,6 +101,40 @@ public class BudgetResource {
         return Response.ok(budget).build();
     }
 
+    @GET
+    @Path("/{year}/matrix")
+    @Operation(summary = "Get effective budget matrix", description = "Effective amount per month and expense type in cents, with one-time items expanded into their month")
+    @APIResponse(responseCode = "200", description = "12 x expense type matrix",
+        content = @Content(schema = @Schema(implementation = BudgetMatrixResponse.class)))
+    @APIResponse(responseCode = "404", description = "Budget not found")
+    public Response getBudgetMatrix(@PathParam("year") Integer year) {
+        BudgetMatrixResponse matrix = budgetMatrixService.getMatrixResponse(extractEmail(), year);
+        return Response.ok(matrix).build();
+    }
+
+    @GET
+    @Path("/{year}/burn-rate")
+    @Operation(summary = "Get budget burn rate", description = "Planned vs actual spend per expense type and month for a yearly budget")
+    @APIResponse(responseCode = "200", description = "Planned, actual and remaining amounts",
+        content = @Content(schema = @Schema(implementation = BurnRateResponse.class)))
+    @APIResponse(responseCode = "404", description = "Budget not found")
+    @APIResponse(responseCode = "503", description = "Transaction service unavailable")
+    public Response getBurnRate(@PathParam("year") Integer year) {
+        BurnRateResponse burnRate = burnRateService.getBurnRate(extractEmail(), year);
+        return Response.ok(burnRate).build();
+    }
+
+    @GET
+    @Path("/{year}/forecast")
+    @Operation(summary = "Get year-end forecast", description = "Projected year-end spend and savings per expense type from the budget and year-to-date actuals")
+    @APIResponse(responseCode = "200", description = "Forecast; incomplete if actuals missed the latency budget",
+        content = @Content(schema = @Schema(implementation = ForecastResponse.class)))
+    @APIResponse(responseCode = "404", description = "Budget not found")
+    public Response getForecast(@PathParam("year") Integer year) {
+        ForecastResponse forecast = forecastService.getForecast(extractEmail(), year);
+        return Response.ok(forecast).build();
+    }
+
     @DELETE
     @Path("/{year}")
     @Operation(summary = "Delete budget", description = "Delete a budget and all its items")
@@ -1,7 +1,9 @@
 package com.personalfinance.budgetservice.resource;
 
+import com.personalfinance.budgetservice.dto.CarryOverResponse;
 import com.personalfinance.budgetservice.dto.ExpenseTypeRequest;
 import com.personalfinance.budgetservice.dto.ExpenseTypeResponse;
+import com.personalfinance.budgetservice.service.CarryOverService;
 import com.personalfinance.budgetservice.service.ExpenseTypeService;
 import io.quarkus.security.Authenticated;
 import jakarta.inject.Inject;
@@ -13,10 +15,12 @@ import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -34,6 +38,9 @@ public class ExpenseTypeResource {
     @Inject
     ExpenseTypeService service;
 
+    @Inject
+    CarryOverService carryOverService;
+
     @GET
     @Operation(summary = "Get all expense types", description = "Retrieve all expense types for the authenticated user")
     @APIResponse(responseCode = "200", description = "List of expense types")
@@ -42,6 +49,20 @@ public class ExpenseTypeResource {
         return Response.ok(expenseTypes).build();
     }
 
+    @GET
+    @Path("/carry-over")
+    @Operation(summary = "Get carry-over balances", description = "Running budgeted minus spent balance of each accumulating expense type per month of a year, up to the current month")
+    @APIResponse(responseCode = "200", description = "Carry-over balances",
+        content = @Content(schema = @Schema(implementation = CarryOverResponse.class)))
+    @APIResponse(responseCode = "503", description = "Transaction service unavailable")
+    public Response getCarryOver(
+        @Parameter(description = "Year (defaults to the current year)") @QueryParam("year") Integer year
+    ) {
+        int targetYear = year != null ? year : LocalDate.now().getYear();
+        CarryOverResponse carryOver = carryOverService.getCarryOver(extractEmail(), targetYear);
+        return Response.ok(carryOver).build();
+    }
+
     @GET
     @Path("/{id}")
     @Operation(summary = "Get expense type by ID", description = "Retrieve a specific expense type")
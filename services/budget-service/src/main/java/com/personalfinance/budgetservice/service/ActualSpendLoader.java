@@ -0,0 +1,92 @@
+package com.personalfinance.budgetservice.service;
+
+import com.personalfinance.budgetservice.client.TransactionServiceClient;
+import com.personalfinance.budgetservice.dto.ExpenseTypeMatrixResponse;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads the calling user's actual spend per expense type and month from transaction-service's
+ * month x type matrix, in as few calls as its range limit allows
+ */
+@ApplicationScoped
+public class ActualSpendLoader {
+
+    /**
+     * Largest range transaction-service serves in one matrix call
+     */
+    private static final int MAX_MATRIX_MONTHS = 120;
+
+    @Inject
+    @RestClient
+    TransactionServiceClient transactionServiceClient;
+
+    /**
+     * Non-zero spend per expense type and month between two months (inclusive)
+     */
+    public Map<UUID, Map<YearMonth, BigDecimal>> load(YearMonth from, YearMonth to) {
+        Map<UUID, Map<YearMonth, BigDecimal>> actual = new HashMap<>();
+        for (YearMonth chunkStart = from; !chunkStart.isAfter(to); chunkStart = chunkStart.plusMonths(MAX_MATRIX_MONTHS)) {
+            YearMonth chunkEnd = chunkStart.plusMonths(MAX_MATRIX_MONTHS - 1);
+            if (chunkEnd.isAfter(to)) {
+                chunkEnd = to;
+            }
+
+            collect(fetch(chunkStart, chunkEnd), actual);
+        }
+        return actual;
+    }
+
+    /**
+     * Like {@link #load} for a range within one matrix call, without blocking the caller;
+     * fails with a {@link ServiceUnavailableException} if the call fails
+     */
+    public CompletableFuture<Map<UUID, Map<YearMonth, BigDecimal>>> loadAsync(YearMonth from, YearMonth to) {
+        if (from.plusMonths(MAX_MATRIX_MONTHS - 1).isBefore(to)) {
+            throw new IllegalArgumentException("Range cannot exceed " + MAX_MATRIX_MONTHS + " months");
+        }
+        return transactionServiceClient.getExpenseTypeMatrixAsync(from.toString(), to.toString())
+            .toCompletableFuture()
+            .handle((matrix, failure) -> {
+                if (failure != null) {
+                    throw new ServiceUnavailableException("Could not load actual spending, please try again later");
+                }
+                Map<UUID, Map<YearMonth, BigDecimal>> actual = new HashMap<>();
+                collect(matrix, actual);
+                return actual;
+            });
+    }
+
+    private void collect(ExpenseTypeMatrixResponse matrix, Map<UUID, Map<YearMonth, BigDecimal>> actual) {
+        for (int i = 0; i < matrix.months().size(); i++) {
+            YearMonth month = YearMonth.parse(matrix.months().get(i));
+            List<BigDecimal> amounts = matrix.amounts().get(i);
+            for (int j = 0; j < matrix.expenseTypeIds().size(); j++) {
+                BigDecimal amount = amounts.get(j);
+                if (amount != null && amount.signum() != 0) {
+                    actual.computeIfAbsent(matrix.expenseTypeIds().get(j), id -> new HashMap<>()).put(month, amount);
+                }
+            }
+        }
+    }
+
+    private ExpenseTypeMatrixResponse fetch(YearMonth from, YearMonth to) {
+        try {
+            return transactionServiceClient.getExpenseTypeMatrix(from.toString(), to.toString());
+        } catch (ProcessingException | WebApplicationException e) {
+            throw new ServiceUnavailableException("Could not load actual spending, please try again later");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.personalfinance.budgetservice.service;
+
+import com.personalfinance.invalidation.InvalidationMessage;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CompositeCacheKey;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+import java.util.List;
+
+/**
+ * Drops cached budget matrices once a write to the budget has committed, on this replica or another
+ */
+@ApplicationScoped
+public class BudgetCacheInvalidator {
+
+    public static final String BUDGET_MATRIX_CACHE = "budget-matrix";
+
+    @Inject
+    @CacheName(BUDGET_MATRIX_CACHE)
+    Cache budgetMatrixCache;
+
+    void onInvalidation(@Observes(during = TransactionPhase.AFTER_SUCCESS) InvalidationMessage message) {
+        if (!message.matches(BudgetService.BUDGET_TOPIC)) {
+            return;
+        }
+
+        List<String> keys = message.keys();
+        if (keys.size() < 2) {
+            budgetMatrixCache.invalidateAll().await().indefinitely();
+            return;
+        }
+
+        budgetMatrixCache.invalidate(new CompositeCacheKey(keys.get(0), Integer.valueOf(keys.get(1))))
+            .await().indefinitely();
+    }
+}
@@ -0,0 +1,105 @@
+package com.personalfinance.budgetservice.service;
+
+import com.personalfinance.budgetservice.entity.BudgetItem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Effective budget of one year as a dense 12 x expense type matrix of cents: recurring items count in every
+ * month, one-time items only in their applicable month. Immutable, so it can be shared from the cache.
+ */
+public final class BudgetMatrix {
+
+    public static final int MONTHS = 12;
+
+    private final UUID budgetId;
+    private final int year;
+    private final List<UUID> expenseTypeIds;
+    private final Map<UUID, Integer> columns;
+    private final long[][] cents;
+
+    private BudgetMatrix(UUID budgetId, int year, List<UUID> expenseTypeIds, long[][] cents) {
+        this.budgetId = budgetId;
+        this.year = year;
+        this.expenseTypeIds = expenseTypeIds;
+        this.cents = cents;
+        this.columns = new HashMap<>();
+        for (int i = 0; i < expenseTypeIds.size(); i++) {
+            columns.put(expenseTypeIds.get(i), i);
+        }
+    }
+
+    /**
+     * Expand the items of a budget; expense type columns are ordered by ID
+     */
+    public static BudgetMatrix of(UUID budgetId, int year, Collection<BudgetItem> items) {
+        List<UUID> expenseTypeIds = items.stream()
+            .map(item -> item.expenseTypeId)
+            .distinct()
+            .sorted()
+            .toList();
+        BudgetMatrix matrix = new BudgetMatrix(budgetId, year, expenseTypeIds, new long[MONTHS][expenseTypeIds.size()]);
+
+        for (BudgetItem item : items) {
+            int column = matrix.columns.get(item.expenseTypeId);
+            long amount = toCents(item.amount);
+            if (item.isOneTime) {
+                matrix.cents[item.applicableMonth - 1][column] += amount;
+            } else {
+                for (int m = 0; m < MONTHS; m++) {
+                    matrix.cents[m][column] += amount;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    public UUID budgetId() {
+        return budgetId;
+    }
+
+    public int year() {
+        return year;
+    }
+
+    public List<UUID> expenseTypeIds() {
+        return expenseTypeIds;
+    }
+
+    /**
+     * Effective amount of an expense type in a month (1-12), in cents
+     */
+    public long cents(int month, UUID expenseTypeId) {
+        Integer column = columns.get(expenseTypeId);
+        return column != null ? cents[month - 1][column] : 0L;
+    }
+
+    /**
+     * Copy of one month's row, in expense type column order
+     */
+    public long[] month(int month) {
+        return cents[month - 1].clone();
+    }
+
+    public long monthTotal(int month) {
+        long total = 0;
+        for (long amount : cents[month - 1]) {
+            total += amount;
+        }
+        return total;
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,53 @@
+package com.personalfinance.budgetservice.service;
+
+import com.personalfinance.budgetservice.dto.BudgetMatrixResponse;
+import com.personalfinance.budgetservice.entity.Budget;
+import com.personalfinance.budgetservice.entity.BudgetItem;
+import com.personalfinance.budgetservice.repository.BudgetRepository;
+import io.quarkus.cache.CacheResult;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ApplicationScoped
+public class BudgetMatrixService {
+
+    @Inject
+    BudgetRepository budgetRepository;
+
+    /**
+     * Effective 12 x expense type matrix of a user's budget, cached until the budget is written
+     */
+    @CacheResult(cacheName = BudgetCacheInvalidator.BUDGET_MATRIX_CACHE)
+    public BudgetMatrix getMatrix(String userEmail, Integer year) {
+        List<Object[]> rows = budgetRepository.findRowsByUserEmailAndYear(userEmail, year);
+        if (rows.isEmpty()) {
+            throw new NotFoundException("Budget not found for year " + year);
+        }
+
+        Budget budget = (Budget) rows.get(0)[0];
+        List<BudgetItem> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                items.add((BudgetItem) row[1]);
+            }
+        }
+        return BudgetMatrix.of(budget.id, budget.year, items);
+    }
+
+    public BudgetMatrixResponse getMatrixResponse(String userEmail, Integer year) {
+        BudgetMatrix matrix = getMatrix(userEmail, year);
+
+        long[][] amounts = new long[BudgetMatrix.MONTHS][];
+        long[] totals = new long[BudgetMatrix.MONTHS];
+        for (int month = 1; month <= BudgetMatrix.MONTHS; month++) {
+            amounts[month - 1] = matrix.month(month);
+            totals[month - 1] = matrix.monthTotal(month);
+        }
+
+        return new BudgetMatrixResponse(matrix.budgetId(), matrix.year(), matrix.expenseTypeIds(), amounts, totals);
+    }
+}
@@ -0,0 +1,159 @@
+package com.personalfinance.budgetservice.service;
+
+import com.personalfinance.budgetservice.repository.BudgetRepository;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rolls every user's current budget over to next year when they haven't created one themselves.
+ * <p>
+ * Users are paged by email and copied in set-based chunks ({@link BudgetService#copyBudgets}) on a small
+ * worker pool, each chunk in its own transaction. Workers pause between chunks so the job doesn't starve
+ * interactive traffic of connections. Progress lives in the data: rolled-over users drop out of the
+ * candidate query, so a run interrupted by a crash or shutdown resumes on the next trigger.
+ * <p>
+ * {@code concurrentExecution = SKIP} only covers this JVM; across replicas a run holds a PostgreSQL
+ * session advisory lock, and replicas that can't take it skip the trigger. The lock is released when the
+ * run ends or, should the replica die, when its connection closes.
+ */
+@ApplicationScoped
+public class BudgetRolloverJob {
+
+    private static final Logger LOG = Logger.getLogger(BudgetRolloverJob.class);
+
+    private static final String LOCK_NAME = "budget-rollover";
+
+    @Inject
+    BudgetRepository repository;
+
+    @Inject
+    BudgetService budgetService;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "budget.rollover.chunk-size")
+    int chunkSize;
+
+    @ConfigProperty(name = "budget.rollover.workers")
+    int workers;
+
+    @ConfigProperty(name = "budget.rollover.chunk-pause-millis")
+    long chunkPauseMillis;
+
+    private volatile boolean stopping;
+
+    @PreDestroy
+    void shutdown() {
+        stopping = true;
+    }
+
+    @Scheduled(identity = "budget-rollover", cron = "{budget.rollover.cron}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledRollover() {
+        int year = LocalDate.now().getYear();
+        rollover(year, year + 1);
+    }
+
+    /**
+     * Copy the fromYear budget of every user without a toYear budget, unless another replica is already
+     * rolling over
+     *
+     * @return the number of users rolled over, 0 when another replica holds the lock
+     */
+    public long rollover(int fromYear, int toYear) {
+        // The session lock belongs to this connection, which is kept out of any transaction for the whole run
+        try (Connection lockConnection = dataSource.getConnection()) {
+            if (!advisoryLock(lockConnection, "SELECT pg_try_advisory_lock(hashtext(?))")) {
+                LOG.infof("Budget rollover %d -> %d is running on another replica, skipping", fromYear, toYear);
+                return 0;
+            }
+            try {
+                return rolloverLocked(fromYear, toYear);
+            } finally {
+                advisoryLock(lockConnection, "SELECT pg_advisory_unlock(hashtext(?))");
+            }
+        } catch (SQLException e) {
+            LOG.warnf(e, "Budget rollover %d -> %d failed on its advisory lock", fromYear, toYear);
+            return 0;
+        }
+    }
+
+    private boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, LOCK_NAME);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private long rolloverLocked(int fromYear, int toYear) {
+        long startedAt = System.nanoTime();
+        AtomicLong rolledOver = new AtomicLong();
+        AtomicLong failedChunks = new AtomicLong();
+        Semaphore permits = new Semaphore(workers);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "budget-rollover");
+            thread.setDaemon(true);
+            return thread;
+        })) {
+            String afterUserEmail = "";
+            while (!stopping) {
+                List<String> chunk = repository.findUserEmailsWithoutBudget(fromYear, toYear, afterUserEmail, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                afterUserEmail = chunk.get(chunk.size() - 1);
+
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        rolledOver.addAndGet(budgetService.copyBudgets(chunk, fromYear, toYear).size());
+                    } catch (RuntimeException e) {
+                        // Left for the next run, the users are still without a budget
+                        failedChunks.incrementAndGet();
+                        LOG.warnf(e, "Budget rollover chunk starting at %s failed", chunk.get(0));
+                    } finally {
+                        pause();
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1_000_000_000.0, 0.001);
+        LOG.infof("Budget rollover %d -> %d: %d users in %.1fs (%.1f users/s), %d failed chunks%s",
+            fromYear, toYear, rolledOver.get(), seconds, rolledOver.get() / seconds, failedChunks.get(),
+            stopping ? ", stopped early" : "");
+        return rolledOver.get();
+    }
+
+    private void pause() {
+        if (chunkPauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(chunkPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -8,22 +8,41 @@ import com.personalfinance.budgetservice.entity.ExpenseType;
 import com.personalfinance.budgetservice.repository.BudgetRepository;
 import com.personalfinance.budgetservice.repository.BudgetItemRepository;
 import com.personalfinance.budgetservice.repository.ExpenseTypeRepository;
+import com.personalfinance.invalidation.InvalidationBus;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.WebApplicationException;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 
 import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class BudgetService {
 
+    /**
+     * Invalidation topic for a user's budget; keys are (user, year)
+     */
+    public static final String BUDGET_TOPIC = "budget";
+
+    // Must not exceed transaction-service's per-request limit on /check-budget-items
+    private static final int BUDGET_ITEM_CHECK_CHUNK_SIZE = 1000;
+
     @Inject
     BudgetRepository repository;
 
@@ -37,17 +56,20 @@ public class BudgetService {
     @RestClient
     TransactionServiceClient transactionServiceClient;
 
+    @Inject
+    InvalidationBus invalidationBus;
+
+    @Inject
+    CarryOverService carryOverService;
+
     public List<BudgetResponse> getBudgets(String userEmail) {
-        return repository.findByUserEmail(userEmail).stream()
-            .map(this::toResponse)
-            .toList();
+        return toResponses(repository.findRowsByUserEmail(userEmail));
     }
 
     public BudgetResponse getBudget(String userEmail, Integer year) {
-        Budget budget = repository.findByUserEmailAndYear(userEmail, year)
+        return toResponses(repository.findRowsByUserEmailAndYear(userEmail, year)).stream()
+            .findFirst()
             .orElseThrow(() -> new NotFoundException("Budget not found for year " + year));
-
-        return toResponse(budget);
     }
 
     @Transactional
@@ -65,6 +87,8 @@ public class BudgetService {
             createBudgetItems(userEmail, budget.id, items);
         }
 
+        carryOverService.markDirty(userEmail, budget.year);
+        invalidationBus.publish(BUDGET_TOPIC, userEmail, budget.year);
         return toResponse(budget);
     }
 
@@ -73,33 +97,63 @@ public class BudgetService {
         Budget budget = repository.findByUserEmailAndYear(userEmail, year)
             .orElseThrow(() -> new NotFoundException("Budget not found for year " + year));
 
-        // Delete existing items
-        budgetItemRepository.deleteByBudgetId(budget.id);
+        List<BudgetItemRequest> requested = items != null ? items : List.of();
+        validateBudgetItems(userEmail, requested);
 
-        // Create new items
-        if (items != null && !items.isEmpty()) {
-            createBudgetItems(userEmail, budget.id, items);
+        // Match existing items by (expenseTypeId, isOneTime, applicableMonth) and only touch what changed
+        Map<BudgetItemKey, ArrayDeque<BudgetItem>> existing = new HashMap<>();
+        for (BudgetItem item : budgetItemRepository.findByBudgetId(budget.id)) {
+            existing.computeIfAbsent(BudgetItemKey.of(item), key -> new ArrayDeque<>()).add(item);
+        }
+
+        for (BudgetItemRequest itemRequest : requested) {
+            ArrayDeque<BudgetItem> matches = existing.get(BudgetItemKey.of(itemRequest));
+            BudgetItem item = matches != null ? matches.poll() : null;
+            if (item == null) {
+                persistBudgetItem(budget.id, itemRequest);
+            } else if (item.amount.compareTo(itemRequest.amount()) != 0) {
+                // Flushed as a batched UPDATE by dirty checking
+                item.amount = itemRequest.amount();
+            }
+        }
+
+        List<UUID> removedIds = existing.values().stream()
+            .flatMap(ArrayDeque::stream)
+            .map(item -> item.id)
+            .toList();
+        if (!removedIds.isEmpty()) {
+            budgetItemRepository.delete("id in ?1", removedIds);
         }
 
+        carryOverService.markDirty(userEmail, budget.year);
+        invalidationBus.publish(BUDGET_TOPIC, userEmail, budget.year);
         return toResponse(budget);
     }
 
-    @Transactional
+    /**
+     * Delete a budget unless any of its items have transactions.
+     * The transaction-service check runs before the delete transaction so no DB connection is held during the remote call.
+     */
     public void deleteBudget(String userEmail, Integer year) {
         Budget budget = repository.findByUserEmailAndYear(userEmail, year)
             .orElseThrow(() -> new NotFoundException("Budget not found for year " + year));
 
         // Check if any budget items have transactions
-        List<BudgetItem> budgetItems = budgetItemRepository.findByBudgetId(budget.id);
-        for (BudgetItem item : budgetItems) {
-            Boolean hasTransactions = transactionServiceClient.hasBudgetItemTransactions(item.id);
-            if (hasTransactions != null && hasTransactions) {
-                throw new BadRequestException("Cannot delete budget for year " + year + " because it has existing transactions. Please delete all transactions first.");
-            }
+        List<UUID> budgetItemIds = budgetItemRepository.findByBudgetId(budget.id).stream()
+            .map(item -> item.id)
+            .toList();
+        if (anyBudgetItemHasTransactions(budgetItemIds)) {
+            throw new BadRequestException("Cannot delete budget for year " + year + " because it has existing transactions. Please delete all transactions first.");
         }
 
-        // Budget items will be cascade deleted due to FK constraint
-        repository.delete(budget);
+        QuarkusTransaction.requiringNew().run(() -> {
+            // Budget items will be cascade deleted due to FK constraint
+            if (repository.delete("id", budget.id) == 0) {
+                throw new NotFoundException("Budget not found for year " + year);
+            }
+            carryOverService.markDirty(userEmail, year);
+            invalidationBus.publish(BUDGET_TOPIC, userEmail, year);
+        });
     }
 
     @Transactional
@@ -116,23 +170,66 @@ public class BudgetService {
         newBudget.userEmail = userEmail;
         newBudget.year = toYear;
         repository.persist(newBudget);
+        repository.flush();
 
-        // Copy budget items
-        List<BudgetItem> sourceItems = budgetItemRepository.findByBudgetId(sourceBudget.id);
-        for (BudgetItem sourceItem : sourceItems) {
-            BudgetItem newItem = new BudgetItem();
-            newItem.budgetId = newBudget.id;
-            newItem.expenseTypeId = sourceItem.expenseTypeId;
-            newItem.amount = sourceItem.amount;
-            newItem.isOneTime = sourceItem.isOneTime;
-            newItem.applicableMonth = sourceItem.applicableMonth;
-            budgetItemRepository.persist(newItem);
-        }
+        // Copy budget items server-side
+        budgetItemRepository.copyItems(sourceBudget.id, newBudget.id);
 
+        carryOverService.markDirty(userEmail, toYear);
+        invalidationBus.publish(BUDGET_TOPIC, userEmail, toYear);
         return toResponse(newBudget);
     }
 
+    /**
+     * Copy the budgets of many users from one year to another, e.g. for the December rollover.
+     * Users without a source budget or who already have a target budget are skipped.
+     *
+     * @return the users whose budget was copied
+     */
+    @Transactional
+    public List<String> copyBudgets(Collection<String> userEmails, Integer fromYear, Integer toYear) {
+        validateBudgetYear(toYear);
+        if (userEmails == null || userEmails.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> copied = repository.copyBudgets(userEmails, fromYear, toYear);
+        for (String userEmail : copied) {
+            carryOverService.markDirty(userEmail, toYear);
+            invalidationBus.publish(BUDGET_TOPIC, userEmail, toYear);
+        }
+        return copied;
+    }
+
+    /**
+     * Ask transaction-service whether any of the items has transactions, in chunks it accepts,
+     * stopping at the first chunk that reports one.
+     */
+    private boolean anyBudgetItemHasTransactions(List<UUID> budgetItemIds) {
+        for (int from = 0; from < budgetItemIds.size(); from += BUDGET_ITEM_CHECK_CHUNK_SIZE) {
+            Set<UUID> chunk = Set.copyOf(
+                budgetItemIds.subList(from, Math.min(from + BUDGET_ITEM_CHECK_CHUNK_SIZE, budgetItemIds.size())));
+            try {
+                if (!transactionServiceClient.getBudgetItemsWithTransactions(chunk).isEmpty()) {
+                    return true;
+                }
+            } catch (ProcessingException | WebApplicationException e) {
+                throw new ServiceUnavailableException("Could not check budget transactions, please try again later");
+            }
+        }
+        return false;
+    }
+
     private void validateBudgetCreation(String userEmail, Integer year) {
+        validateBudgetYear(year);
+
+        // Check if budget already exists
+        if (repository.existsByUserEmailAndYear(userEmail, year)) {
+            throw new BadRequestException("Budget for year " + year + " already exists");
+        }
+    }
+
+    private void validateBudgetYear(Integer year) {
         LocalDate now = LocalDate.now();
 
         // Cannot create budgets for past years
@@ -149,14 +246,21 @@ public class BudgetService {
                 throw new BadRequestException("Cannot create budgets more than one year ahead");
             }
         }
+    }
 
-        // Check if budget already exists
-        if (repository.existsByUserEmailAndYear(userEmail, year)) {
-            throw new BadRequestException("Budget for year " + year + " already exists");
+    private void createBudgetItems(String userEmail, UUID budgetId, List<BudgetItemRequest> items) {
+        validateBudgetItems(userEmail, items);
+
+        for (BudgetItemRequest itemRequest : items) {
+            persistBudgetItem(budgetId, itemRequest);
         }
     }
 
-    private void createBudgetItems(String userEmail, UUID budgetId, List<BudgetItemRequest> items) {
+    private void validateBudgetItems(String userEmail, List<BudgetItemRequest> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
         // Validate all expense types exist and belong to user
         List<UUID> expenseTypeIds = items.stream()
             .map(BudgetItemRequest::expenseTypeId)
@@ -173,24 +277,54 @@ public class BudgetService {
             throw new BadRequestException("Cannot use expense types from other users");
         }
 
-        // Create budget items
+        // Validate one-time expense logic
         for (BudgetItemRequest itemRequest : items) {
-            // Validate one-time expense logic
             if (itemRequest.isOneTime() && itemRequest.applicableMonth() == null) {
                 throw new BadRequestException("One-time expenses must have an applicable month");
             }
             if (!itemRequest.isOneTime() && itemRequest.applicableMonth() != null) {
                 throw new BadRequestException("Recurring expenses cannot have an applicable month");
             }
+        }
+    }
 
-            BudgetItem item = new BudgetItem();
-            item.budgetId = budgetId;
-            item.expenseTypeId = itemRequest.expenseTypeId();
-            item.amount = itemRequest.amount();
-            item.isOneTime = itemRequest.isOneTime();
-            item.applicableMonth = itemRequest.applicableMonth();
-            budgetItemRepository.persist(item);
+    private void persistBudgetItem(UUID budgetId, BudgetItemRequest itemRequest) {
+        BudgetItem item = new BudgetItem();
+        item.budgetId = budgetId;
+        item.expenseTypeId = itemRequest.expenseTypeId();
+        item.amount = itemRequest.amount();
+        item.isOneTime = itemRequest.isOneTime();
+        item.applicableMonth = itemRequest.applicableMonth();
+        budgetItemRepository.persist(item);
+    }
+
+    /**
+     * Assemble responses from flat (Budget, BudgetItem, ExpenseType) rows, keeping the row order
+     */
+    private List<BudgetResponse> toResponses(List<Object[]> rows) {
+        Map<UUID, Budget> budgets = new LinkedHashMap<>();
+        Map<UUID, List<BudgetItemResponse>> itemsByBudget = new HashMap<>();
+
+        for (Object[] row : rows) {
+            Budget budget = (Budget) row[0];
+            BudgetItem item = (BudgetItem) row[1];
+            budgets.putIfAbsent(budget.id, budget);
+            List<BudgetItemResponse> items = itemsByBudget.computeIfAbsent(budget.id, id -> new ArrayList<>());
+            if (item != null) {
+                items.add(toBudgetItemResponse(item, (ExpenseType) row[2]));
+            }
         }
+
+        return budgets.values().stream()
+            .map(budget -> new BudgetResponse(
+                budget.id,
+                budget.userEmail,
+                budget.year,
+                itemsByBudget.get(budget.id),
+                budget.createdAt,
+                budget.updatedAt
+            ))
+            .toList();
     }
 
     private BudgetResponse toResponse(Budget budget) {
@@ -243,4 +377,18 @@ public class BudgetService {
             item.updatedAt
         );
     }
+
+    /**
+     * Identity of a budget item within its budget
+     */
+    private record BudgetItemKey(UUID expenseTypeId, boolean isOneTime, Integer applicableMonth) {
+
+        static BudgetItemKey of(BudgetItem item) {
+            return new BudgetItemKey(item.expenseTypeId, item.isOneTime, item.applicableMonth);
+        }
+
+        static BudgetItemKey of(BudgetItemRequest request) {
+            return new BudgetItemKey(request.expenseTypeId(), request.isOneTime(), request.applicableMonth());
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package com.personalfinance.budgetservice.service;
+
+import com.personalfinance.budgetservice.dto.BurnRateEntry;
+import com.personalfinance.budgetservice.dto.BurnRateResponse;
+import com.personalfinance.budgetservice.repository.ExpenseTypeRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Budget vs actual per expense type and month.
+ * Planned amounts come from the cached effective {@link BudgetMatrix} of the budget; actuals come from
+ * one month x type matrix call to transaction-service.
+ */
+@ApplicationScoped
+public class BurnRateService {
+
+    private static final int MONTHS = BudgetMatrix.MONTHS;
+
+    @Inject
+    BudgetMatrixService budgetMatrixService;
+
+    @Inject
+    ExpenseTypeRepository expenseTypeRepository;
+
+    @Inject
+    ActualSpendLoader actualSpendLoader;
+
+    public BurnRateResponse getBurnRate(String userEmail, Integer year) {
+        BudgetMatrix matrix = budgetMatrixService.getMatrix(userEmail, year);
+        Map<UUID, BigDecimal[]> planned = new HashMap<>();
+        for (UUID typeId : matrix.expenseTypeIds()) {
+            BigDecimal[] months = new BigDecimal[MONTHS];
+            for (int m = 0; m < MONTHS; m++) {
+                months[m] = BudgetMatrix.fromCents(matrix.cents(m + 1, typeId));
+            }
+            planned.put(typeId, months);
+        }
+
+        Map<UUID, BigDecimal[]> actual = getActuals(year);
+
+        Map<UUID, String> names = expenseTypeRepository.findByUserEmail(userEmail).stream()
+            .collect(Collectors.toMap(et -> et.id, et -> et.name));
+        Set<UUID> typeIds = new LinkedHashSet<>();
+        planned.keySet().stream()
+            .sorted(Comparator.comparing(id -> names.getOrDefault(id, "")))
+            .forEach(typeIds::add);
+        actual.keySet().stream()
+            .filter(names::containsKey)
+            .sorted(Comparator.comparing(names::get))
+            .forEach(typeIds::add);
+
+        List<BurnRateEntry> entries = new ArrayList<>();
+        BigDecimal totalPlanned = BigDecimal.ZERO;
+        BigDecimal totalActual = BigDecimal.ZERO;
+        for (int m = 0; m < MONTHS; m++) {
+            for (UUID typeId : typeIds) {
+                BigDecimal plannedAmount = planned.containsKey(typeId) ? planned.get(typeId)[m] : BigDecimal.ZERO;
+                BigDecimal actualAmount = actual.containsKey(typeId) ? actual.get(typeId)[m] : BigDecimal.ZERO;
+                if (plannedAmount.signum() == 0 && actualAmount.signum() == 0) {
+                    continue;
+                }
+                entries.add(new BurnRateEntry(
+                    typeId,
+                    names.get(typeId),
+                    m + 1,
+                    plannedAmount,
+                    actualAmount,
+                    plannedAmount.subtract(actualAmount)
+                ));
+                totalPlanned = totalPlanned.add(plannedAmount);
+                totalActual = totalActual.add(actualAmount);
+            }
+        }
+
+        return new BurnRateResponse(year, totalPlanned, totalActual, totalPlanned.subtract(totalActual), entries);
+    }
+
+    /**
+     * Actual spend per expense type, indexed by month - 1
+     */
+    private Map<UUID, BigDecimal[]> getActuals(Integer year) {
+        Map<UUID, BigDecimal[]> actual = new HashMap<>();
+        actualSpendLoader.load(YearMonth.of(year, 1), YearMonth.of(year, MONTHS)).forEach((typeId, byMonth) -> {
+            BigDecimal[] months = zeroMonths();
+            byMonth.forEach((month, amount) -> months[month.getMonthValue() - 1] = amount);
+            actual.put(typeId, months);
+        });
+        return actual;
+    }
+
+    private static BigDecimal[] zeroMonths() {
+        BigDecimal[] months = new BigDecimal[MONTHS];
+        Arrays.fill(months, BigDecimal.ZERO);
+        return months;
+    }
+}
@@ -0,0 +1,303 @@
+package com.personalfinance.budgetservice.service;
+
+import com.personalfinance.budgetservice.dto.CarryOverEntry;
+import com.personalfinance.budgetservice.dto.CarryOverResponse;
+import com.personalfinance.budgetservice.entity.Budget;
+import com.personalfinance.budgetservice.entity.BudgetItem;
+import com.personalfinance.budgetservice.entity.CarryOverBalance;
+import com.personalfinance.budgetservice.entity.CarryOverState;
+import com.personalfinance.budgetservice.repository.BudgetRepository;
+import com.personalfinance.budgetservice.repository.CarryOverBalanceRepository;
+import com.personalfinance.budgetservice.repository.ExpenseTypeRepository;
+import com.personalfinance.invalidation.InvalidationMessage;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Running (budgeted - spent) balances of accumulating expense types, carried over from month to month.
+ * <p>
+ * Balances are stored per user, type and month. Instead of recomputing from the first budget on every read,
+ * changes mark a user's balances stale from the earliest affected month: budget writes mark January of their
+ * year, and transaction-service's "spend" notifications mark the month that changed. A read then recomputes
+ * only the stale tail, starting from the stored balance of the month before it. Balances are computed up to
+ * the current month, so the months that began since the last refresh are stale as well.
+ * <p>
+ * Notifications are lost while this service is down or disconnected, so transaction-service also records
+ * each spend change in {@code transaction_schema.spend_changes}. On start, on reconnect and periodically,
+ * {@link #catchUp()} marks the months of the changes after a persisted cursor, rather than every balance.
+ * Only a cursor that was never set or has fallen behind the log's retention marks everything stale.
+ */
+@ApplicationScoped
+public class CarryOverService {
+
+    private static final Logger LOG = Logger.getLogger(CarryOverService.class);
+
+    /**
+     * Invalidation topic published by transaction-service; keys are (user) or (user, year, month)
+     */
+    static final String SPEND_TOPIC = "spend";
+
+    /**
+     * Marks balances stale from the very first budget month
+     */
+    private static final LocalDate FROM_START = LocalDate.of(1970, 1, 1);
+
+    private static final int MAX_REFRESH_ATTEMPTS = 3;
+
+    @Inject
+    CarryOverBalanceRepository repository;
+
+    @Inject
+    BudgetRepository budgetRepository;
+
+    @Inject
+    ExpenseTypeRepository expenseTypeRepository;
+
+    @Inject
+    ActualSpendLoader actualSpendLoader;
+
+    @ConfigProperty(name = "carry-over.catch-up.settle-time")
+    Duration settleTime;
+
+    /**
+     * Spend notifications sent while this service was down are lost
+     */
+    void onStart(@Observes StartupEvent event) {
+        catchUp();
+    }
+
+    @Scheduled(identity = "carry-over-catch-up", every = "{carry-over.catch-up.every}", delayed = "{carry-over.catch-up.every}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledCatchUp() {
+        catchUp();
+    }
+
+    void onInvalidation(@Observes InvalidationMessage message) {
+        if (message.topic().equals(InvalidationMessage.ALL_TOPICS)) {
+            // Notifications may have been missed while disconnected
+            catchUp();
+            return;
+        }
+        if (!message.topic().equals(SPEND_TOPIC) || message.keys().isEmpty()) {
+            return;
+        }
+
+        String userEmail = message.keys().get(0);
+        LocalDate from = message.keys().size() >= 3
+            ? LocalDate.of(Integer.parseInt(message.keys().get(1)), Integer.parseInt(message.keys().get(2)), 1)
+            : FROM_START;
+        try {
+            QuarkusTransaction.requiringNew().run(() -> repository.markDirty(userEmail, from));
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Could not mark carry-over balances of %s stale", userEmail);
+        }
+    }
+
+    /**
+     * Mark balances stale for the spend changes recorded since the last catch-up, and move the cursor past
+     * the ones old enough to be committed in order. Falls back to marking everything stale when the changes
+     * can't be read.
+     */
+    public void catchUp() {
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                // Serializes catch-ups across replicas
+                Long cursor = repository.lockSpendChangeCursor();
+                long after = cursor != null ? cursor : 0;
+                if (cursor == null || repository.findSpendChangesPrunedThrough() > after) {
+                    LOG.infof("Spend change log starts after cursor %s, marking all carry-over balances stale", cursor);
+                    repository.markAllDirty(FROM_START);
+                } else {
+                    repository.markDirtyFromSpendChanges(after, FROM_START);
+                }
+                repository.updateSpendChangeCursor(repository.findLastSettledSpendChange(after, settleTime.toSeconds()));
+            });
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Could not read spend changes, marking all carry-over balances stale");
+            QuarkusTransaction.requiringNew().run(() -> repository.markAllDirty(FROM_START));
+        }
+    }
+
+    /**
+     * Mark a user's balances stale from January of the given year, in the caller's transaction
+     */
+    public void markDirty(String userEmail, int year) {
+        repository.markDirty(userEmail, LocalDate.of(year, 1, 1));
+    }
+
+    /**
+     * Mark all of a user's balances stale, in the caller's transaction
+     */
+    public void markDirty(String userEmail) {
+        repository.markDirty(userEmail, FROM_START);
+    }
+
+    /**
+     * Carry-over balances of the user's accumulating expense types for each month of a year, up to the current month
+     */
+    public CarryOverResponse getCarryOver(String userEmail, Integer year) {
+        refresh(userEmail);
+
+        Map<UUID, String> names = expenseTypeRepository.findByUserEmail(userEmail).stream()
+            .collect(Collectors.toMap(et -> et.id, et -> et.name));
+        List<CarryOverEntry> entries = repository.findByUserEmailAndYear(userEmail, year).stream()
+            .map(balance -> new CarryOverEntry(
+                balance.expenseTypeId,
+                names.get(balance.expenseTypeId),
+                balance.month,
+                balance.budgeted,
+                balance.spent,
+                balance.balance
+            ))
+            .toList();
+
+        return new CarryOverResponse(year, entries);
+    }
+
+    /**
+     * Recompute the stale tail of a user's balances, if any.
+     * <p>
+     * Balances are computed outside any transaction, so they are only written if the state is still the one
+     * they were computed from. Otherwise a newer mark or refresh won, and this refresh is retried against it.
+     */
+    private void refresh(String userEmail) {
+        for (int attempt = 1; attempt <= MAX_REFRESH_ATTEMPTS; attempt++) {
+            if (refreshOnce(userEmail)) {
+                return;
+            }
+        }
+        LOG.warnf("Carry-over balances of %s kept changing during refresh, serving them as they are", userEmail);
+    }
+
+    /**
+     * @return false if the state changed while the balances were computed, so nothing was written
+     */
+    private boolean refreshOnce(String userEmail) {
+        CarryOverState state = QuarkusTransaction.requiringNew().call(() -> {
+            repository.ensureState(userEmail, FROM_START);
+            return repository.findState(userEmail);
+        });
+        YearMonth end = YearMonth.now();
+        LocalDate dirtyFrom = staleFrom(state, end);
+        if (dirtyFrom == null) {
+            return true;
+        }
+        long version = state.version;
+        LocalDate snapshotDirtyFrom = state.dirtyFrom;
+        LocalDate snapshotComputedThrough = state.computedThrough;
+
+        YearMonth start = YearMonth.from(dirtyFrom);
+        Integer firstYear = budgetRepository.findFirstYear(userEmail);
+        if (firstYear != null && start.isBefore(YearMonth.of(firstYear, 1))) {
+            start = YearMonth.of(firstYear, 1);
+        }
+
+        List<UUID> typeIds = expenseTypeRepository.findAccumulatingByUserEmail(userEmail).stream()
+            .map(et -> et.id)
+            .toList();
+
+        List<CarryOverBalance> balances = new ArrayList<>();
+        if (firstYear != null && !typeIds.isEmpty() && !start.isAfter(end)) {
+            balances = computeBalances(userEmail, typeIds, start, end);
+        }
+
+        YearMonth deleteFrom = start;
+        List<CarryOverBalance> recomputed = balances;
+        return QuarkusTransaction.requiringNew().call(() -> {
+            // Serializes refreshes of the same user across replicas
+            CarryOverState locked = repository.lockState(userEmail);
+            // A mark since the snapshot bumps the version; a refresh that won the race moved the other two
+            if (locked.version != version
+                    || !Objects.equals(locked.dirtyFrom, snapshotDirtyFrom)
+                    || !Objects.equals(locked.computedThrough, snapshotComputedThrough)) {
+                return false;
+            }
+            repository.deleteFrom(userEmail, deleteFrom);
+            repository.persist(recomputed);
+            repository.markComputed(userEmail, end);
+            return true;
+        });
+    }
+
+    /**
+     * First stale month of a user's balances: the marked one, or else the first month after the last computed
+     * one, as months that began since then have no balances yet
+     *
+     * @return null when the balances are up to date
+     */
+    private static LocalDate staleFrom(CarryOverState state, YearMonth currentMonth) {
+        if (state.dirtyFrom != null) {
+            return state.dirtyFrom;
+        }
+        if (state.computedThrough == null) {
+            return FROM_START;
+        }
+        YearMonth next = YearMonth.from(state.computedThrough).plusMonths(1);
+        return next.isAfter(currentMonth) ? null : next.atDay(1);
+    }
+
+    private List<CarryOverBalance> computeBalances(String userEmail, List<UUID> typeIds, YearMonth start, YearMonth end) {
+        // Budgeted amount per type and month
+        Map<UUID, Map<YearMonth, BigDecimal>> budgeted = new HashMap<>();
+        for (Object[] row : budgetRepository.findRowsByUserEmailAndYearRange(userEmail, start.getYear(), end.getYear())) {
+            Budget budget = (Budget) row[0];
+            BudgetItem item = (BudgetItem) row[1];
+            if (item == null || !typeIds.contains(item.expenseTypeId)) {
+                continue;
+            }
+            Map<YearMonth, BigDecimal> byMonth = budgeted.computeIfAbsent(item.expenseTypeId, id -> new HashMap<>());
+            if (item.isOneTime) {
+                byMonth.merge(YearMonth.of(budget.year, item.applicableMonth), item.amount, BigDecimal::add);
+            } else {
+                for (int month = 1; month <= 12; month++) {
+                    byMonth.merge(YearMonth.of(budget.year, month), item.amount, BigDecimal::add);
+                }
+            }
+        }
+
+        Map<UUID, Map<YearMonth, BigDecimal>> spent = actualSpendLoader.load(start, end);
+
+        // Roll forward from the stored balances of the month before the stale tail
+        Map<UUID, BigDecimal> running = new HashMap<>(repository.findByUserEmailAndMonth(userEmail, start.minusMonths(1)).stream()
+            .collect(Collectors.toMap(balance -> balance.expenseTypeId, balance -> balance.balance)));
+
+        List<CarryOverBalance> balances = new ArrayList<>();
+        for (YearMonth month = start; !month.isAfter(end); month = month.plusMonths(1)) {
+            for (UUID typeId : typeIds) {
+                BigDecimal monthBudgeted = budgeted.getOrDefault(typeId, Map.of()).getOrDefault(month, BigDecimal.ZERO);
+                BigDecimal monthSpent = spent.getOrDefault(typeId, Map.of()).getOrDefault(month, BigDecimal.ZERO);
+                BigDecimal balance = running.getOrDefault(typeId, BigDecimal.ZERO).add(monthBudgeted).subtract(monthSpent);
+                running.put(typeId, balance);
+
+                CarryOverBalance row = new CarryOverBalance();
+                row.userEmail = userEmail;
+                row.expenseTypeId = typeId;
+                row.year = month.getYear();
+                row.month = month.getMonthValue();
+                row.budgeted = monthBudgeted;
+                row.spent = monthSpent;
+                row.balance = balance;
+                balances.add(row);
+            }
+        }
+        return balances;
+    }
+}
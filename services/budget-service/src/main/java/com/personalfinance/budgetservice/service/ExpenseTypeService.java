@@ -5,6 +5,7 @@ import com.personalfinance.budgetservice.dto.ExpenseTypeResponse;
 import com.personalfinance.budgetservice.entity.ExpenseType;
 import com.personalfinance.budgetservice.repository.ExpenseTypeRepository;
 import com.personalfinance.budgetservice.repository.BudgetItemRepository;
+import com.personalfinance.invalidation.InvalidationBus;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -17,16 +18,25 @@ import java.util.UUID;
 @ApplicationScoped
 public class ExpenseTypeService {
 
+    /**
+     * Invalidation topic for a user's expense types; keys are (user)
+     */
+    public static final String EXPENSE_TYPE_TOPIC = "expense-type";
+
     @Inject
     ExpenseTypeRepository repository;
 
     @Inject
     BudgetItemRepository budgetItemRepository;
 
+    @Inject
+    InvalidationBus invalidationBus;
+
+    @Inject
+    CarryOverService carryOverService;
+
     public List<ExpenseTypeResponse> getExpenseTypes(String userEmail) {
-        return repository.findByUserEmail(userEmail).stream()
-            .map(this::toResponse)
-            .toList();
+        return repository.findResponsesByUserEmail(userEmail);
     }
 
     public ExpenseTypeResponse getExpenseType(String userEmail, UUID id) {
@@ -52,6 +62,7 @@ public class ExpenseTypeService {
         expenseType.accumulate = request.accumulate() != null ? request.accumulate() : false;
 
         repository.persist(expenseType);
+        invalidationBus.publish(EXPENSE_TYPE_TOPIC, userEmail);
         return toResponse(expenseType);
     }
 
@@ -73,6 +84,8 @@ public class ExpenseTypeService {
         expenseType.accumulate = request.accumulate() != null ? request.accumulate() : false;
 
         repository.persist(expenseType);
+        carryOverService.markDirty(userEmail);
+        invalidationBus.publish(EXPENSE_TYPE_TOPIC, userEmail);
         return toResponse(expenseType);
     }
 
@@ -89,6 +102,8 @@ public class ExpenseTypeService {
         }
 
         repository.delete(expenseType);
+        carryOverService.markDirty(userEmail);
+        invalidationBus.publish(EXPENSE_TYPE_TOPIC, userEmail);
     }
 
     private ExpenseTypeResponse toResponse(ExpenseType expenseType) {
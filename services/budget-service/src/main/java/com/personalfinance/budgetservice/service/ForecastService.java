@@ -0,0 +1,224 @@
+package com.personalfinance.budgetservice.service;
+
+import com.personalfinance.budgetservice.dto.ForecastEntry;
+import com.personalfinance.budgetservice.dto.ForecastResponse;
+import com.personalfinance.budgetservice.repository.ExpenseTypeRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Projects year-end spend and savings per expense type.
+ * <p>
+ * The projection blends the remaining budget with the year-to-date run rate, weighted by how much of the
+ * year has elapsed: early in the year the budget dominates, late in the year the observed spend does.
+ * <p>
+ * The actuals call to transaction-service runs asynchronously alongside the (cached) budget matrix lookup
+ * and is bounded by {@code budget.forecast.latency-budget-millis}; if it misses the budget the forecast
+ * falls back to planned amounts and is flagged incomplete. Users with many expense types have their
+ * projections split across a small bounded pool.
+ */
+@ApplicationScoped
+public class ForecastService {
+
+    private static final Logger LOG = Logger.getLogger(ForecastService.class);
+
+    private static final int MONTHS = BudgetMatrix.MONTHS;
+    private static final BigDecimal MONTHS_IN_YEAR = BigDecimal.valueOf(MONTHS);
+    private static final int SCALE = 2;
+    private static final int PARALLEL_THRESHOLD = 64;
+    private static final int PARALLEL_CHUNK_SIZE = 32;
+
+    @Inject
+    BudgetMatrixService budgetMatrixService;
+
+    @Inject
+    ExpenseTypeRepository expenseTypeRepository;
+
+    @Inject
+    ActualSpendLoader actualSpendLoader;
+
+    @ConfigProperty(name = "budget.forecast.latency-budget-millis")
+    long latencyBudgetMillis;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        4, 4, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(64),
+        runnable -> {
+            Thread thread = new Thread(runnable, "budget-forecast");
+            thread.setDaemon(true);
+            return thread;
+        },
+        // Past the queue, project on the request thread rather than fail
+        new ThreadPoolExecutor.CallerRunsPolicy());
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public ForecastResponse getForecast(String userEmail, Integer year) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latencyBudgetMillis);
+        LocalDate asOf = LocalDate.now();
+        BigDecimal elapsedMonths = elapsedMonths(year, asOf);
+
+        // Only ask for actuals of months that have started
+        CompletableFuture<Map<UUID, Map<YearMonth, BigDecimal>>> actualsFuture = elapsedMonths.signum() > 0
+            ? actualSpendLoader.loadAsync(YearMonth.of(year, 1), YearMonth.of(year, Math.min(MONTHS, elapsedMonths.intValue() + 1)))
+            : CompletableFuture.completedFuture(Map.of());
+
+        BudgetMatrix matrix = budgetMatrixService.getMatrix(userEmail, year);
+        Map<UUID, String> names = expenseTypeRepository.findByUserEmail(userEmail).stream()
+            .collect(Collectors.toMap(et -> et.id, et -> et.name));
+
+        Map<UUID, Map<YearMonth, BigDecimal>> actuals = awaitActuals(actualsFuture, deadline);
+        boolean complete = actuals != null;
+
+        Set<UUID> typeIds = new LinkedHashSet<>(matrix.expenseTypeIds());
+        if (actuals != null) {
+            actuals.keySet().stream().filter(names::containsKey).forEach(typeIds::add);
+        }
+        List<UUID> orderedTypeIds = typeIds.stream()
+            .sorted(Comparator.comparing(id -> names.getOrDefault(id, "")))
+            .toList();
+
+        List<ForecastEntry> entries = new ArrayList<>(orderedTypeIds.size());
+        if (orderedTypeIds.size() < PARALLEL_THRESHOLD) {
+            for (UUID typeId : orderedTypeIds) {
+                entries.add(project(typeId, names.get(typeId), matrix, actuals, year, elapsedMonths));
+            }
+        } else {
+            List<Future<List<ForecastEntry>>> chunks = new ArrayList<>();
+            for (int i = 0; i < orderedTypeIds.size(); i += PARALLEL_CHUNK_SIZE) {
+                List<UUID> chunk = orderedTypeIds.subList(i, Math.min(i + PARALLEL_CHUNK_SIZE, orderedTypeIds.size()));
+                chunks.add(executor.submit(() -> chunk.stream()
+                    .map(typeId -> project(typeId, names.get(typeId), matrix, actuals, year, elapsedMonths))
+                    .toList()));
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                List<UUID> chunk = orderedTypeIds.subList(i * PARALLEL_CHUNK_SIZE,
+                    Math.min((i + 1) * PARALLEL_CHUNK_SIZE, orderedTypeIds.size()));
+                try {
+                    entries.addAll(chunks.get(i).get(remainingNanos(deadline), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException | ExecutionException e) {
+                    chunks.get(i).cancel(true);
+                    complete = false;
+                    for (UUID typeId : chunk) {
+                        entries.add(project(typeId, names.get(typeId), matrix, null, year, elapsedMonths));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while projecting", e);
+                }
+            }
+        }
+
+        BigDecimal totalPlanned = BigDecimal.ZERO;
+        BigDecimal totalActual = BigDecimal.ZERO;
+        BigDecimal totalProjected = BigDecimal.ZERO;
+        for (ForecastEntry entry : entries) {
+            totalPlanned = totalPlanned.add(entry.planned());
+            totalActual = entry.actualToDate() != null ? totalActual.add(entry.actualToDate()) : totalActual;
+            totalProjected = totalProjected.add(entry.projectedYearEnd());
+        }
+
+        return new ForecastResponse(year, asOf, totalPlanned, complete ? totalActual : null,
+            totalProjected, totalPlanned.subtract(totalProjected), complete, entries);
+    }
+
+    /**
+     * Project one expense type; without actuals, the projection is the plan
+     */
+    private ForecastEntry project(UUID typeId, String name, BudgetMatrix matrix,
+                                  Map<UUID, Map<YearMonth, BigDecimal>> actuals, int year, BigDecimal elapsedMonths) {
+        BigDecimal planned = BigDecimal.ZERO;
+        BigDecimal plannedRemaining = BigDecimal.ZERO;
+        for (int month = 1; month <= MONTHS; month++) {
+            BigDecimal amount = BudgetMatrix.fromCents(matrix.cents(month, typeId));
+            planned = planned.add(amount);
+            // Share of the month still ahead: 0 for past months, partial for the current one, 1 for future ones
+            BigDecimal remainingShare = BigDecimal.valueOf(month).subtract(elapsedMonths).max(BigDecimal.ZERO).min(BigDecimal.ONE);
+            plannedRemaining = plannedRemaining.add(amount.multiply(remainingShare));
+        }
+
+        if (actuals == null) {
+            return new ForecastEntry(typeId, name, planned, null, null, planned, BigDecimal.ZERO.setScale(SCALE));
+        }
+
+        BigDecimal actualToDate = BigDecimal.ZERO;
+        for (Map.Entry<YearMonth, BigDecimal> entry : actuals.getOrDefault(typeId, Map.of()).entrySet()) {
+            if (entry.getKey().getYear() == year) {
+                actualToDate = actualToDate.add(entry.getValue());
+            }
+        }
+
+        BigDecimal runRate = elapsedMonths.signum() > 0
+            ? actualToDate.divide(elapsedMonths, SCALE, RoundingMode.HALF_UP)
+            : BigDecimal.ZERO;
+        BigDecimal remainingMonths = MONTHS_IN_YEAR.subtract(elapsedMonths);
+        BigDecimal weight = elapsedMonths.divide(MONTHS_IN_YEAR, 4, RoundingMode.HALF_UP);
+
+        BigDecimal projectedRemaining = BigDecimal.ONE.subtract(weight).multiply(plannedRemaining)
+            .add(weight.multiply(runRate).multiply(remainingMonths));
+        BigDecimal projected = actualToDate.add(projectedRemaining).setScale(SCALE, RoundingMode.HALF_UP);
+
+        return new ForecastEntry(typeId, name, planned, actualToDate, runRate, projected,
+            planned.subtract(projected).setScale(SCALE, RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Months of the year elapsed as of a date, including the elapsed fraction of the current month
+     */
+    private static BigDecimal elapsedMonths(int year, LocalDate asOf) {
+        if (year < asOf.getYear()) {
+            return MONTHS_IN_YEAR;
+        }
+        if (year > asOf.getYear()) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal monthFraction = BigDecimal.valueOf(asOf.getDayOfMonth())
+            .divide(BigDecimal.valueOf(asOf.lengthOfMonth()), 4, RoundingMode.HALF_UP);
+        return BigDecimal.valueOf(asOf.getMonthValue() - 1L).add(monthFraction);
+    }
+
+    private Map<UUID, Map<YearMonth, BigDecimal>> awaitActuals(
+            CompletableFuture<Map<UUID, Map<YearMonth, BigDecimal>>> actualsFuture, long deadline) {
+        try {
+            return actualsFuture.get(remainingNanos(deadline), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOG.debugf("Actual spend missed the %dms forecast budget", latencyBudgetMillis);
+            return null;
+        } catch (ExecutionException e) {
+            LOG.debugf(e, "Actual spend unavailable for forecast");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static long remainingNanos(long deadline) {
+        return Math.max(0L, deadline - System.nanoTime());
+    }
+}
@@ -0,0 +1,27 @@
+package com.personalfinance.budgetservice;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Counts the SQL statements Hibernate prepares while a piece of code runs,
+ * from the statistics enabled in the test profile
+ */
+@ApplicationScoped
+public class QueryCounter {
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    /**
+     * Number of statements prepared while {@code body} ran
+     */
+    public long count(Runnable body) {
+        Statistics statistics = sessionFactory.getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        body.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
@@ -0,0 +1,66 @@
+package com.personalfinance.budgetservice;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Signs bearer tokens with a throwaway RSA key and points OIDC at its public half,
+ * so tests go through the same token verification as production without a Keycloak
+ */
+public class TestTokens implements QuarkusTestResourceLifecycleManager {
+
+    private static final KeyPair KEYS = generateKeys();
+
+    @Override
+    public Map<String, String> start() {
+        return Map.of(
+            "quarkus.oidc.public-key", Base64.getEncoder().encodeToString(KEYS.getPublic().getEncoded()),
+            "quarkus.oidc.auth-server-url", "");
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    /**
+     * A bearer token for a user, valid for an hour
+     */
+    public static String tokenFor(String email) {
+        long now = Instant.now().getEpochSecond();
+        String header = "{\"alg\":\"RS256\",\"typ\":\"JWT\"}";
+        String claims = "{\"iss\":\"test\",\"sub\":\"" + email + "\",\"email\":\"" + email + "\"," +
+            "\"preferred_username\":\"" + email + "\",\"iat\":" + now + ",\"exp\":" + (now + 3600) + "}";
+        String signingInput = base64Url(header.getBytes(StandardCharsets.UTF_8)) + "." +
+            base64Url(claims.getBytes(StandardCharsets.UTF_8));
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(KEYS.getPrivate());
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + base64Url(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static KeyPair generateKeys() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
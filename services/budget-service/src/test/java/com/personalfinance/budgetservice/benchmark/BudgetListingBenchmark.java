@@ -0,0 +1,133 @@
+package com.personalfinance.budgetservice.benchmark;
+
+import com.personalfinance.budgetservice.QueryCounter;
+import com.personalfinance.budgetservice.TestTokens;
+import com.personalfinance.budgetservice.entity.Budget;
+import com.personalfinance.budgetservice.entity.BudgetItem;
+import com.personalfinance.budgetservice.entity.ExpenseType;
+import com.personalfinance.budgetservice.repository.BudgetItemRepository;
+import com.personalfinance.budgetservice.repository.BudgetRepository;
+import com.personalfinance.budgetservice.repository.ExpenseTypeRepository;
+import com.personalfinance.budgetservice.service.BudgetService;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Budget listing for a user with 10 years of budgets: the single join query against the per-budget
+ * loading it replaced, which ran an items query and an expense type query for every budget (2N+1).
+ * The old path is rebuilt here from the repositories it used.
+ */
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class BudgetListingBenchmark {
+
+    private static final int YEARS = 10;
+    private static final int EXPENSE_TYPES = 30;
+
+    @Inject
+    BudgetService budgetService;
+
+    @Inject
+    BudgetRepository budgetRepository;
+
+    @Inject
+    BudgetItemRepository budgetItemRepository;
+
+    @Inject
+    ExpenseTypeRepository expenseTypeRepository;
+
+    @Inject
+    QueryCounter queryCounter;
+
+    @Test
+    void joinQueryAgainstPerBudgetLoading() {
+        String email = "bench-budgets-" + UUID.randomUUID() + "@example.com";
+        int lastYear = LocalDate.now().getYear();
+        int items = seed(email, lastYear);
+        String token = TestTokens.tokenFor(email);
+
+        Benchmark.report("budget listing: %d budgets, %d expense types, %d budget items", YEARS, EXPENSE_TYPES, items);
+        Benchmark.report("%-48s %d statements", "per-budget loading (2N+1)",
+            queryCounter.count(() -> QuarkusTransaction.requiringNew().call(() -> perBudgetListing(email))));
+        Benchmark.report("%-48s %d statements", "join query, getBudgets",
+            queryCounter.count(() -> QuarkusTransaction.requiringNew().call(() -> budgetService.getBudgets(email))));
+        Benchmark.report("%-48s %d statements", "join query, getBudget(year)",
+            queryCounter.count(() -> QuarkusTransaction.requiringNew().call(() -> budgetService.getBudget(email, lastYear))));
+
+        Benchmark.report("%-48s %,d bytes", "GET /api/v1/budgets response",
+            given().auth().oauth2(token).get("/api/v1/budgets").then().statusCode(200).extract().asByteArray().length);
+
+        Benchmark.run("per-budget loading (2N+1), in process", 50, 300,
+            () -> QuarkusTransaction.requiringNew().call(() -> perBudgetListing(email)));
+        Benchmark.run("join query getBudgets, in process", 50, 300,
+            () -> QuarkusTransaction.requiringNew().call(() -> budgetService.getBudgets(email)));
+        Benchmark.run("GET /api/v1/budgets over HTTP", 50, 300,
+            () -> given().auth().oauth2(token).get("/api/v1/budgets").then().statusCode(200));
+        Benchmark.run("GET /api/v1/budgets/{year} over HTTP", 50, 300,
+            () -> given().auth().oauth2(token).get("/api/v1/budgets/" + lastYear).then().statusCode(200));
+    }
+
+    /**
+     * The listing as it was: budgets, then items and their expense types budget by budget
+     */
+    private List<Map<ExpenseType, List<BudgetItem>>> perBudgetListing(String email) {
+        List<Map<ExpenseType, List<BudgetItem>>> budgets = new ArrayList<>();
+        for (Budget budget : budgetRepository.findByUserEmail(email)) {
+            List<BudgetItem> items = budgetItemRepository.findByBudgetId(budget.id);
+            Map<UUID, ExpenseType> types = expenseTypeRepository
+                .list("id in ?1", items.stream().map(item -> item.expenseTypeId).toList()).stream()
+                .collect(Collectors.toMap(type -> type.id, Function.identity()));
+            budgets.add(items.stream().collect(Collectors.groupingBy(item -> types.get(item.expenseTypeId))));
+        }
+        return budgets;
+    }
+
+    private int seed(String email, int lastYear) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            List<ExpenseType> types = new ArrayList<>();
+            for (int i = 0; i < EXPENSE_TYPES; i++) {
+                ExpenseType type = new ExpenseType();
+                type.userEmail = email;
+                type.name = "type " + i;
+                expenseTypeRepository.persist(type);
+                types.add(type);
+            }
+
+            int items = 0;
+            for (int year = lastYear - YEARS + 1; year <= lastYear; year++) {
+                Budget budget = new Budget();
+                budget.userEmail = email;
+                budget.year = year;
+                budgetRepository.persist(budget);
+
+                for (ExpenseType type : types) {
+                    for (int month = 1; month <= 12; month++) {
+                        BudgetItem item = new BudgetItem();
+                        item.budgetId = budget.id;
+                        item.expenseTypeId = type.id;
+                        item.amount = new BigDecimal("50.00");
+                        item.isOneTime = true;
+                        item.applicableMonth = month;
+                        budgetItemRepository.persist(item);
+                        items++;
+                    }
+                }
+            }
+            return items;
+        });
+    }
+}
@@ -0,0 +1,203 @@
+package com.personalfinance.budgetservice.benchmark;
+
+import com.personalfinance.budgetservice.TestTokens;
+import com.personalfinance.budgetservice.entity.Budget;
+import com.personalfinance.budgetservice.entity.BudgetItem;
+import com.personalfinance.budgetservice.entity.ExpenseType;
+import com.personalfinance.budgetservice.repository.BudgetItemRepository;
+import com.personalfinance.budgetservice.repository.BudgetRepository;
+import com.personalfinance.budgetservice.repository.CarryOverBalanceRepository;
+import com.personalfinance.budgetservice.repository.ExpenseTypeRepository;
+import com.personalfinance.budgetservice.service.ActualSpendLoader;
+import com.personalfinance.budgetservice.service.CarryOverService;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Carry-over balances of a user with 10 years of budgets over 20 accumulating expense types, read after
+ * everything was marked stale (what every start and reconnect used to do) and after one month was.
+ * Then the catch-up that replaced it, on missed spend changes of a few users.
+ * <p>
+ * transaction-service is replaced by a fake that serves a fixed spend for every month, so the timings leave
+ * out the matrix call; the number of type-months it was asked for is reported instead.
+ */
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class CarryOverBenchmark {
+
+    private static final int YEARS = 10;
+    private static final int EXPENSE_TYPES = 20;
+    private static final int MISSED_CHANGES = 100;
+    private static final int CHANGED_USERS = 10;
+
+    @Inject
+    CarryOverService carryOverService;
+
+    @Inject
+    CarryOverBalanceRepository carryOverRepository;
+
+    @Inject
+    BudgetRepository budgetRepository;
+
+    @Inject
+    BudgetItemRepository budgetItemRepository;
+
+    @Inject
+    ExpenseTypeRepository expenseTypeRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    private final List<UUID> typeIds = new ArrayList<>();
+    private final AtomicLong monthsLoaded = new AtomicLong();
+
+    @BeforeEach
+    void installFakeSpend() {
+        QuarkusMock.installMockForType(new ActualSpendLoader() {
+            @Override
+            public Map<UUID, Map<YearMonth, BigDecimal>> load(YearMonth from, YearMonth to) {
+                Map<UUID, Map<YearMonth, BigDecimal>> spent = new HashMap<>();
+                for (UUID typeId : typeIds) {
+                    Map<YearMonth, BigDecimal> byMonth = new HashMap<>();
+                    for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                        byMonth.put(month, new BigDecimal("40.00"));
+                        monthsLoaded.incrementAndGet();
+                    }
+                    spent.put(typeId, byMonth);
+                }
+                return spent;
+            }
+        }, ActualSpendLoader.class);
+    }
+
+    @Test
+    void refreshAfterMarkingEverythingAgainstOneMonth() {
+        String email = "bench-carry-over-" + UUID.randomUUID() + "@example.com";
+        int year = LocalDate.now().getYear();
+        seed(email, year);
+        String token = TestTokens.tokenFor(email);
+        Runnable read = () -> given().auth().oauth2(token)
+            .get("/api/v1/expense-types/carry-over?year=" + year)
+            .then().statusCode(200);
+        read.run();
+
+        Benchmark.report("carry-over: %d years of budgets, %d accumulating expense types", YEARS, EXPENSE_TYPES);
+        Benchmark.report("%-48s %,d type-months", "spend loaded, everything stale", loadedBy(() -> {
+            markAllStale(email);
+            read.run();
+        }));
+        Benchmark.report("%-48s %,d type-months", "spend loaded, current month stale", loadedBy(() -> {
+            markCurrentMonthStale(email);
+            read.run();
+        }));
+
+        Benchmark.run("read after everything was marked stale", 5, 50, () -> markAllStale(email), read);
+        Benchmark.run("read after the current month was marked stale", 5, 50, () -> markCurrentMonthStale(email), read);
+        Benchmark.run("read, nothing stale", 5, 50, read);
+    }
+
+    @Test
+    void catchUpOnMissedChanges() {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < CHANGED_USERS; i++) {
+            String email = "bench-catch-up-" + UUID.randomUUID() + "@example.com";
+            execute("INSERT INTO budget_schema.carry_over_state (user_email, dirty_from, version) VALUES (?1, NULL, 0)", email);
+            emails.add(email);
+        }
+        long users = count("SELECT COUNT(*) FROM budget_schema.carry_over_state");
+
+        Benchmark.report("catch-up: %d missed spend changes of %d users, %,d users with carry-over state",
+            MISSED_CHANGES, CHANGED_USERS, users);
+        Benchmark.run("catch-up on missed spend changes", 5, 50, () -> {
+            execute("UPDATE budget_schema.spend_change_cursor SET last_sequence = " +
+                "(SELECT COALESCE(MAX(sequence), 0) FROM transaction_schema.spend_changes) WHERE id = 1");
+            for (int i = 0; i < MISSED_CHANGES; i++) {
+                execute("INSERT INTO transaction_schema.spend_changes (user_email, year, month) VALUES (?1, ?2, ?3)",
+                    emails.get(i % CHANGED_USERS), 2020 + i % 5, 1 + i % 12);
+            }
+        }, () -> carryOverService.catchUp());
+        long stale = 0;
+        for (String email : emails) {
+            stale += count("SELECT COUNT(*) FROM budget_schema.carry_over_state " +
+                "WHERE dirty_from IS NOT NULL AND user_email = '" + email + "'");
+        }
+        Benchmark.report("%-48s %d of %d changed users", "stale after catch-up", stale, CHANGED_USERS);
+    }
+
+    private long loadedBy(Runnable body) {
+        long before = monthsLoaded.get();
+        body.run();
+        return monthsLoaded.get() - before;
+    }
+
+    private void markAllStale(String email) {
+        QuarkusTransaction.requiringNew().run(() -> carryOverService.markDirty(email));
+    }
+
+    private void markCurrentMonthStale(String email) {
+        QuarkusTransaction.requiringNew().run(() -> carryOverRepository.markDirty(email, LocalDate.now().withDayOfMonth(1)));
+    }
+
+    private void seed(String email, int lastYear) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            List<ExpenseType> types = new ArrayList<>();
+            for (int i = 0; i < EXPENSE_TYPES; i++) {
+                ExpenseType type = new ExpenseType();
+                type.userEmail = email;
+                type.name = "type " + i;
+                type.accumulate = true;
+                expenseTypeRepository.persist(type);
+                types.add(type);
+                typeIds.add(type.id);
+            }
+
+            for (int year = lastYear - YEARS + 1; year <= lastYear; year++) {
+                Budget budget = new Budget();
+                budget.userEmail = email;
+                budget.year = year;
+                budgetRepository.persist(budget);
+
+                for (ExpenseType type : types) {
+                    BudgetItem item = new BudgetItem();
+                    item.budgetId = budget.id;
+                    item.expenseTypeId = type.id;
+                    item.amount = new BigDecimal("50.00");
+                    budgetItemRepository.persist(item);
+                }
+            }
+        });
+    }
+
+    private long count(String sql) {
+        return QuarkusTransaction.requiringNew().call(() ->
+            ((Number) entityManager.createNativeQuery(sql).getSingleResult()).longValue());
+    }
+
+    private void execute(String sql, Object... parameters) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            var query = entityManager.createNativeQuery(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                query.setParameter(i + 1, parameters[i]);
+            }
+            query.executeUpdate();
+        });
+    }
+}
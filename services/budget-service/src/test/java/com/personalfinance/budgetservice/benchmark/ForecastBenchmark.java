@@ -0,0 +1,148 @@
+package com.personalfinance.budgetservice.benchmark;
+
+import com.personalfinance.budgetservice.TestTokens;
+import com.personalfinance.budgetservice.entity.Budget;
+import com.personalfinance.budgetservice.entity.BudgetItem;
+import com.personalfinance.budgetservice.entity.ExpenseType;
+import com.personalfinance.budgetservice.repository.BudgetItemRepository;
+import com.personalfinance.budgetservice.repository.BudgetRepository;
+import com.personalfinance.budgetservice.repository.ExpenseTypeRepository;
+import com.personalfinance.budgetservice.service.ActualSpendLoader;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@code GET /api/v1/budgets/{year}/forecast} for a user with a few expense types (projected on the request
+ * thread) and for a power user with many (projected on the bounded pool), against the latency budget.
+ * <p>
+ * transaction-service is replaced by a fake that answers the actuals call after a set delay, so the
+ * timings cover the forecast itself plus that delay. A delay past the budget shows the fallback to
+ * planned amounts.
+ */
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class ForecastBenchmark {
+
+    private static final int FEW_TYPES = 20;
+    private static final int MANY_TYPES = 500;
+
+    @Inject
+    BudgetRepository budgetRepository;
+
+    @Inject
+    BudgetItemRepository budgetItemRepository;
+
+    @Inject
+    ExpenseTypeRepository expenseTypeRepository;
+
+    @ConfigProperty(name = "budget.forecast.latency-budget-millis")
+    long latencyBudgetMillis;
+
+    private final List<UUID> typeIds = new CopyOnWriteArrayList<>();
+
+    private volatile long actualsDelayMillis;
+
+    @BeforeEach
+    void installFakeActuals() {
+        QuarkusMock.installMockForType(new ActualSpendLoader() {
+            @Override
+            public CompletableFuture<Map<UUID, Map<YearMonth, BigDecimal>>> loadAsync(YearMonth from, YearMonth to) {
+                return CompletableFuture.supplyAsync(() -> actuals(from, to),
+                    CompletableFuture.delayedExecutor(actualsDelayMillis, TimeUnit.MILLISECONDS));
+            }
+        }, ActualSpendLoader.class);
+    }
+
+    @Test
+    void forecastAgainstTheLatencyBudget() {
+        int year = LocalDate.now().getYear();
+        String few = seed(FEW_TYPES, year);
+        String many = seed(MANY_TYPES, year);
+
+        Benchmark.report("forecast: latency budget %d ms, actuals for every type and elapsed month", latencyBudgetMillis);
+        for (long delay : new long[] { 0, 100 }) {
+            actualsDelayMillis = delay;
+            for (String email : List.of(few, many)) {
+                String token = TestTokens.tokenFor(email);
+                int types = email.equals(few) ? FEW_TYPES : MANY_TYPES;
+                Benchmark.run(String.format("%d types, actuals after %d ms", types, delay), 20, 200,
+                    () -> forecast(token, year, true));
+            }
+        }
+
+        actualsDelayMillis = latencyBudgetMillis * 3;
+        String token = TestTokens.tokenFor(many);
+        Benchmark.run(String.format("%d types, actuals after %d ms", MANY_TYPES, actualsDelayMillis), 2, 20,
+            () -> forecast(token, year, false));
+    }
+
+    private void forecast(String token, int year, boolean complete) {
+        given().auth().oauth2(token)
+            .get("/api/v1/budgets/" + year + "/forecast")
+            .then().statusCode(200)
+            .body("complete", is(complete));
+    }
+
+    /**
+     * Actual spend of 40.00 for every expense type of any user in every month of the range
+     */
+    private Map<UUID, Map<YearMonth, BigDecimal>> actuals(YearMonth from, YearMonth to) {
+        Map<UUID, Map<YearMonth, BigDecimal>> actuals = new HashMap<>();
+        for (UUID typeId : typeIds) {
+            Map<YearMonth, BigDecimal> byMonth = new HashMap<>();
+            for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                byMonth.put(month, new BigDecimal("40.00"));
+            }
+            actuals.put(typeId, byMonth);
+        }
+        return actuals;
+    }
+
+    /**
+     * A user with a budget for the year and a recurring item for each of {@code types} expense types
+     */
+    private String seed(int types, int year) {
+        String email = "bench-forecast-" + UUID.randomUUID() + "@example.com";
+        QuarkusTransaction.requiringNew().run(() -> {
+            Budget budget = new Budget();
+            budget.userEmail = email;
+            budget.year = year;
+            budgetRepository.persist(budget);
+
+            for (int i = 0; i < types; i++) {
+                ExpenseType type = new ExpenseType();
+                type.userEmail = email;
+                type.name = "type " + i;
+                expenseTypeRepository.persist(type);
+                typeIds.add(type.id);
+
+                BudgetItem item = new BudgetItem();
+                item.budgetId = budget.id;
+                item.expenseTypeId = type.id;
+                item.amount = new BigDecimal("50.00");
+                budgetItemRepository.persist(item);
+            }
+        });
+        return email;
+    }
+}
@@ -0,0 +1,92 @@
+package com.personalfinance.budgetservice.repository;
+
+import com.personalfinance.budgetservice.QueryCounter;
+import com.personalfinance.budgetservice.TestTokens;
+import com.personalfinance.budgetservice.entity.Budget;
+import com.personalfinance.budgetservice.entity.BudgetItem;
+import com.personalfinance.budgetservice.entity.ExpenseType;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class ExpenseTypeRepositoryTest {
+
+    @Inject
+    QueryCounter queryCounter;
+
+    @Inject
+    ExpenseTypeRepository expenseTypeRepository;
+
+    @Inject
+    BudgetRepository budgetRepository;
+
+    @Inject
+    BudgetItemRepository budgetItemRepository;
+
+    @Test
+    void listingExpenseTypesIsOneQueryRegardlessOfHowManyThereAre() {
+        String email = "expense-types-" + UUID.randomUUID() + "@example.com";
+        seed(email, 12, 5);
+
+        String token = TestTokens.tokenFor(email);
+        JsonPath[] listing = new JsonPath[1];
+        long statements = queryCounter.count(() -> listing[0] = given().auth().oauth2(token)
+            .get("/api/v1/expense-types")
+            .then().statusCode(200)
+            .extract().jsonPath());
+
+        assertEquals(1, statements, "statements for GET /api/v1/expense-types");
+        assertEquals(12, listing[0].getList("$").size());
+        assertEquals(5, listing[0].getList("findAll { !it.canDelete }").size());
+    }
+
+    @Test
+    void projectionCountsBudgetItemUsage() {
+        String email = "expense-types-" + UUID.randomUUID() + "@example.com";
+        seed(email, 3, 1);
+
+        long statements = queryCounter.count(() -> assertEquals(3, expenseTypeRepository.findResponsesByUserEmail(email).size()));
+
+        assertEquals(1, statements);
+    }
+
+    /**
+     * Create {@code types} expense types, the first {@code used} of them with budget items
+     */
+    private void seed(String email, int types, int used) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Budget budget = new Budget();
+            budget.userEmail = email;
+            budget.year = 2024;
+            budgetRepository.persist(budget);
+
+            for (int i = 0; i < types; i++) {
+                ExpenseType type = new ExpenseType();
+                type.userEmail = email;
+                type.name = "type " + i;
+                expenseTypeRepository.persist(type);
+
+                if (i < used) {
+                    for (int month = 1; month <= 2; month++) {
+                        BudgetItem item = new BudgetItem();
+                        item.budgetId = budget.id;
+                        item.expenseTypeId = type.id;
+                        item.amount = new BigDecimal("100.00");
+                        budgetItemRepository.persist(item);
+                    }
+                }
+            }
+        });
+    }
+}
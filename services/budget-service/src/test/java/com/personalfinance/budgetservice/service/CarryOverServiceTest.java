@@ -0,0 +1,371 @@
+package com.personalfinance.budgetservice.service;
+
+import com.personalfinance.budgetservice.TestTokens;
+import com.personalfinance.budgetservice.dto.CarryOverEntry;
+import com.personalfinance.budgetservice.entity.Budget;
+import com.personalfinance.budgetservice.entity.BudgetItem;
+import com.personalfinance.budgetservice.entity.CarryOverBalance;
+import com.personalfinance.budgetservice.entity.ExpenseType;
+import com.personalfinance.budgetservice.repository.BudgetItemRepository;
+import com.personalfinance.budgetservice.repository.BudgetRepository;
+import com.personalfinance.budgetservice.repository.CarryOverBalanceRepository;
+import com.personalfinance.budgetservice.repository.ExpenseTypeRepository;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Catch-up reads transaction-service's spend change log, so its migrations must have run against the database.
+ * Refreshes run against a fake transaction-service that reports a fixed spend for every month.
+ */
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class CarryOverServiceTest {
+
+    @Inject
+    CarryOverService carryOverService;
+
+    @Inject
+    CarryOverBalanceRepository carryOverRepository;
+
+    @Inject
+    BudgetRepository budgetRepository;
+
+    @Inject
+    BudgetItemRepository budgetItemRepository;
+
+    @Inject
+    ExpenseTypeRepository expenseTypeRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    private final List<YearMonth[]> loadedRanges = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean blockNextLoad = new AtomicBoolean();
+    private final CountDownLatch loadBlocked = new CountDownLatch(1);
+    private final CountDownLatch releaseLoad = new CountDownLatch(1);
+
+    @BeforeEach
+    void installFakeSpend() {
+        QuarkusMock.installMockForType(new ActualSpendLoader() {
+            @Override
+            public Map<UUID, Map<YearMonth, BigDecimal>> load(YearMonth from, YearMonth to) {
+                if (blockNextLoad.compareAndSet(true, false)) {
+                    loadBlocked.countDown();
+                    try {
+                        releaseLoad.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                loadedRanges.add(new YearMonth[] { from, to });
+                Map<UUID, Map<YearMonth, BigDecimal>> spent = new HashMap<>();
+                for (UUID typeId : typeIds) {
+                    Map<YearMonth, BigDecimal> byMonth = new HashMap<>();
+                    for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                        byMonth.put(month, SPENT);
+                    }
+                    spent.put(typeId, byMonth);
+                }
+                return spent;
+            }
+        }, ActualSpendLoader.class);
+    }
+
+    private static final BigDecimal SPENT = new BigDecimal("40.00");
+
+    private final List<UUID> typeIds = new CopyOnWriteArrayList<>();
+
+    @Test
+    void catchUpMarksOnlyTheMonthsOfMissedChanges() {
+        String changedMonths = email();
+        String changedAll = email();
+        String unchanged = email();
+        for (String email : new String[] { changedMonths, changedAll, unchanged }) {
+            createCleanState(email);
+        }
+        long cursor = moveCursorToEnd();
+
+        recordSpendChange(changedMonths, 2024, 2);
+        recordSpendChange(changedMonths, 2023, 5);
+        recordSpendChange(changedAll, null, null);
+        carryOverService.catchUp();
+
+        assertEquals(LocalDate.of(2023, 5, 1), dirtyFrom(changedMonths));
+        assertEquals(LocalDate.of(1970, 1, 1), dirtyFrom(changedAll));
+        assertNull(dirtyFrom(unchanged));
+        // Changes younger than the settle time are read again on the next catch-up
+        assertEquals(cursor, cursor());
+    }
+
+    @Test
+    void catchUpMarksEverythingWhenChangesWerePrunedPastTheCursor() {
+        String email = email();
+        createCleanState(email);
+        long cursor = moveCursorToEnd();
+        long prunedThrough = prunedThrough();
+
+        try {
+            setPrunedThrough(cursor + 1);
+            carryOverService.catchUp();
+        } finally {
+            setPrunedThrough(prunedThrough);
+        }
+
+        assertEquals(LocalDate.of(1970, 1, 1), dirtyFrom(email));
+    }
+
+    @Test
+    void refreshRollsForwardFromThePreviousMonthsStoredBalance() {
+        YearMonth current = YearMonth.now();
+        String email = email();
+        UUID typeId = seedType(email);
+        seedBudget(email, typeId, current.getYear() - 1, "50.00");
+        seedBudget(email, typeId, current.getYear(), "50.00");
+        createState(email, current.atDay(1), current.minusMonths(1).atDay(1));
+        storeBalance(email, typeId, current.minusMonths(1), "100.00");
+
+        carryOverService.getCarryOver(email, current.getYear());
+
+        assertEquals(new BigDecimal("110.00"), balance(email, typeId, current));
+        assertEquals(List.of(current + ".." + current), loaded());
+    }
+
+    @Test
+    void refreshAddsOneTimeItemsToTheirMonthOnly() {
+        int year = YearMonth.now().getYear() - 1;
+        String email = email();
+        UUID typeId = seedType(email);
+        UUID budgetId = seedBudget(email, typeId, year, "50.00");
+        QuarkusTransaction.requiringNew().run(() -> {
+            BudgetItem oneTime = new BudgetItem();
+            oneTime.budgetId = budgetId;
+            oneTime.expenseTypeId = typeId;
+            oneTime.amount = new BigDecimal("300.00");
+            oneTime.isOneTime = true;
+            oneTime.applicableMonth = 6;
+            budgetItemRepository.persist(oneTime);
+        });
+
+        Map<Integer, CarryOverEntry> entries = carryOverService.getCarryOver(email, year).entries().stream()
+            .collect(Collectors.toMap(CarryOverEntry::month, entry -> entry));
+
+        assertEquals(12, entries.size());
+        assertEquals(new BigDecimal("50.00"), entries.get(5).budgeted());
+        assertEquals(new BigDecimal("350.00"), entries.get(6).budgeted());
+        assertEquals(new BigDecimal("50.00"), entries.get(7).budgeted());
+        assertEquals(new BigDecimal("360.00"), entries.get(6).balance());
+        assertEquals(new BigDecimal("420.00"), entries.get(12).balance());
+    }
+
+    @Test
+    void refreshComputesTheMonthsThatBeganSinceTheLastOne() {
+        YearMonth current = YearMonth.now();
+        String email = email();
+        UUID typeId = seedType(email);
+        seedBudget(email, typeId, current.getYear() - 1, "50.00");
+        seedBudget(email, typeId, current.getYear(), "50.00");
+        // Up to date when it was computed, two months ago
+        createState(email, null, current.minusMonths(2).atDay(1));
+        storeBalance(email, typeId, current.minusMonths(2), "100.00");
+
+        carryOverService.getCarryOver(email, current.getYear());
+
+        assertEquals(new BigDecimal("110.00"), balance(email, typeId, current.minusMonths(1)));
+        assertEquals(new BigDecimal("120.00"), balance(email, typeId, current));
+        assertEquals(List.of(current.minusMonths(1) + ".." + current), loaded());
+        assertNull(dirtyFrom(email));
+        assertEquals(current.atDay(1), computedThrough(email));
+    }
+
+    @Test
+    void slowRefreshDoesNotOverwriteANewerOne() throws Exception {
+        int year = YearMonth.now().getYear();
+        String email = email();
+        UUID typeId = seedType(email);
+        seedBudget(email, typeId, year, "50.00");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Computes with the old budget and stalls before writing
+            blockNextLoad.set(true);
+            Future<?> slowRefresh = executor.submit(() -> {
+                ManagedContext requestContext = Arc.container().requestContext();
+                requestContext.activate();
+                try {
+                    carryOverService.getCarryOver(email, year);
+                } finally {
+                    requestContext.terminate();
+                }
+            });
+            assertTrue(loadBlocked.await(30, TimeUnit.SECONDS));
+
+            QuarkusTransaction.requiringNew().run(() -> {
+                budgetItemRepository.find("expenseTypeId", typeId).firstResult().amount = new BigDecimal("80.00");
+                carryOverService.markDirty(email, year);
+            });
+            carryOverService.getCarryOver(email, year);
+
+            releaseLoad.countDown();
+            slowRefresh.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<CarryOverBalance> balances = QuarkusTransaction.requiringNew().call(() ->
+            carryOverRepository.findByUserEmailAndYear(email, year));
+        assertEquals(YearMonth.now().getMonthValue(), balances.size());
+        for (CarryOverBalance balance : balances) {
+            assertEquals(new BigDecimal("80.00"), balance.budgeted, "month " + balance.month);
+        }
+        assertNull(dirtyFrom(email));
+    }
+
+    private UUID seedType(String email) {
+        UUID typeId = QuarkusTransaction.requiringNew().call(() -> {
+            ExpenseType type = new ExpenseType();
+            type.userEmail = email;
+            type.name = "savings";
+            type.accumulate = true;
+            expenseTypeRepository.persist(type);
+            return type.id;
+        });
+        typeIds.add(typeId);
+        return typeId;
+    }
+
+    private UUID seedBudget(String email, UUID typeId, int year, String amount) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            Budget budget = new Budget();
+            budget.userEmail = email;
+            budget.year = year;
+            budgetRepository.persist(budget);
+
+            BudgetItem item = new BudgetItem();
+            item.budgetId = budget.id;
+            item.expenseTypeId = typeId;
+            item.amount = new BigDecimal(amount);
+            budgetItemRepository.persist(item);
+            return budget.id;
+        });
+    }
+
+    private void createState(String email, LocalDate dirtyFrom, LocalDate computedThrough) {
+        execute("INSERT INTO budget_schema.carry_over_state (user_email, dirty_from, computed_through, version) " +
+            "VALUES (?1, ?2, ?3, 0)", email, dirtyFrom, computedThrough);
+    }
+
+    private void storeBalance(String email, UUID typeId, YearMonth month, String balance) {
+        execute("INSERT INTO budget_schema.carry_over_balances (user_email, expense_type_id, year, month, balance) " +
+            "VALUES (?1, ?2, ?3, ?4, CAST(?5 AS DECIMAL))", email, typeId, month.getYear(), month.getMonthValue(), balance);
+    }
+
+    private BigDecimal balance(String email, UUID typeId, YearMonth month) {
+        return QuarkusTransaction.requiringNew().call(() -> carryOverRepository.findByUserEmailAndMonth(email, month).stream()
+            .filter(balance -> balance.expenseTypeId.equals(typeId))
+            .findFirst()
+            .orElseThrow()
+            .balance);
+    }
+
+    private List<String> loaded() {
+        return loadedRanges.stream().map(range -> range[0] + ".." + range[1]).toList();
+    }
+
+    private static String email() {
+        return "carry-over-" + UUID.randomUUID() + "@example.com";
+    }
+
+    private void createCleanState(String email) {
+        execute("INSERT INTO budget_schema.carry_over_state (user_email, dirty_from, version) VALUES (?1, NULL, 0)", email);
+    }
+
+    private void recordSpendChange(String email, Integer year, Integer month) {
+        execute("INSERT INTO transaction_schema.spend_changes (user_email, year, month) VALUES (?1, ?2, ?3)",
+            email, year, month);
+    }
+
+    /**
+     * Point the cursor at the latest spend change, as if every change so far had been caught up on
+     */
+    private long moveCursorToEnd() {
+        execute("UPDATE budget_schema.spend_change_cursor SET last_sequence = " +
+            "(SELECT COALESCE(MAX(sequence), 0) FROM transaction_schema.spend_changes) WHERE id = 1");
+        return cursor();
+    }
+
+    private long cursor() {
+        return queryLong("SELECT last_sequence FROM budget_schema.spend_change_cursor WHERE id = 1");
+    }
+
+    private long prunedThrough() {
+        return queryLong("SELECT pruned_through FROM transaction_schema.spend_change_pruning WHERE id = 1");
+    }
+
+    private void setPrunedThrough(long sequence) {
+        execute("UPDATE transaction_schema.spend_change_pruning SET pruned_through = ?1 WHERE id = 1", sequence);
+    }
+
+    private LocalDate dirtyFrom(String email) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            Object value = entityManager
+                .createNativeQuery("SELECT dirty_from FROM budget_schema.carry_over_state WHERE user_email = ?1")
+                .setParameter(1, email)
+                .getSingleResult();
+            return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+        });
+    }
+
+    private LocalDate computedThrough(String email) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            Object value = entityManager
+                .createNativeQuery("SELECT computed_through FROM budget_schema.carry_over_state WHERE user_email = ?1")
+                .setParameter(1, email)
+                .getSingleResult();
+            return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+        });
+    }
+
+    private long queryLong(String sql) {
+        return QuarkusTransaction.requiringNew().call(() ->
+            ((Number) entityManager.createNativeQuery(sql).getSingleResult()).longValue());
+    }
+
+    private void execute(String sql, Object... parameters) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            var query = entityManager.createNativeQuery(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                query.setParameter(i + 1, parameters[i]);
+            }
+            query.executeUpdate();
+        });
+    }
+}
@@ -0,0 +1,153 @@
+package com.personalfinance.invalidation;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cross-replica cache invalidation over PostgreSQL LISTEN/NOTIFY, shared by the services.
+ * Each service publishes on its own {@code invalidation.channel}.
+ * <p>
+ * {@link #publish} issues pg_notify on the current datasource connection, so inside a transaction the
+ * notification is only delivered to other replicas when that transaction commits. Locally the message is
+ * fired as a CDI {@link InvalidationMessage}; caches observe it with
+ * {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)}.
+ * <p>
+ * A listener thread holds one dedicated connection and re-fires messages from other replicas, and from the
+ * channels of other services listed in {@code invalidation.external-channels}.
+ * If that connection drops, notifications may have been missed, so after reconnecting it fires
+ * {@link InvalidationMessage#ALL_TOPICS} to flush local caches.
+ */
+@ApplicationScoped
+public class InvalidationBus {
+
+    private static final Logger LOG = Logger.getLogger(InvalidationBus.class);
+
+    private static final char SEPARATOR = '\t';
+    private static final int POLL_TIMEOUT_MILLIS = 5000;
+    private static final long RECONNECT_DELAY_MILLIS = 2000;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @ConfigProperty(name = "invalidation.channel")
+    String channel;
+
+    @ConfigProperty(name = "invalidation.external-channels")
+    Optional<List<String>> externalChannels;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    Event<InvalidationMessage> localEvents;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    void onStart(@Observes StartupEvent event) {
+        running = true;
+        listener = new Thread(this::listen, "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * Invalidate a topic/key on this and every other replica
+     */
+    public void publish(String topic, Object... keys) {
+        List<String> keyParts = Arrays.stream(keys).map(String::valueOf).toList();
+
+        StringBuilder payload = new StringBuilder(instanceId).append(SEPARATOR).append(topic);
+        for (String key : keyParts) {
+            payload.append(SEPARATOR).append(key);
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            statement.setString(1, channel);
+            statement.setString(2, payload.toString());
+            statement.execute();
+        } catch (SQLException e) {
+            // Other replicas fall back to cache expiry
+            LOG.warnf(e, "Could not publish invalidation for %s %s", topic, keyParts);
+        }
+
+        localEvents.fire(new InvalidationMessage(topic, keyParts));
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN \"" + channel + "\"");
+                    for (String externalChannel : externalChannels.orElse(List.of())) {
+                        statement.execute("LISTEN \"" + externalChannel + "\"");
+                    }
+                }
+                if (reconnecting) {
+                    localEvents.fire(new InvalidationMessage(InvalidationMessage.ALL_TOPICS, List.of()));
+                }
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                LOG.warnf(e, "Invalidation listener lost its connection, reconnecting");
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        List<String> parts = List.of(payload.split(String.valueOf(SEPARATOR), -1));
+        if (parts.size() < 2 || parts.get(0).equals(instanceId)) {
+            return;
+        }
+        try {
+            localEvents.fire(new InvalidationMessage(parts.get(1), parts.subList(2, parts.size())));
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Failed to apply invalidation %s", payload);
+        }
+    }
+}
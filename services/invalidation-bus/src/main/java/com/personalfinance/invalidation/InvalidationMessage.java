@@ -0,0 +1,16 @@
+package com.personalfinance.invalidation;
+
+import java.util.List;
+
+/**
+ * Cache invalidation for a topic, scoped by key parts (e.g. user, year, month).
+ * A message on {@link #ALL_TOPICS} asks every cache to drop everything.
+ */
+public record InvalidationMessage(String topic, List<String> keys) {
+
+    public static final String ALL_TOPICS = "*";
+
+    public boolean matches(String expectedTopic) {
+        return topic.equals(expectedTopic) || topic.equals(ALL_TOPICS);
+    }
+}
@@ -0,0 +1,147 @@
+package com.personalfinance.invalidation;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * This instance against another replica, played by plain connections that notify and listen on the
+ * same channels
+ */
+@QuarkusTest
+class InvalidationBusTest {
+
+    private static final String CHANNEL = "invalidation_bus_test";
+    private static final String EXTERNAL_CHANNEL = "invalidation_bus_test_external";
+    private static final String OTHER_INSTANCE = "other-instance";
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Inject
+    InvalidationBus bus;
+
+    @Inject
+    RecordedMessages recorded;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @BeforeEach
+    void clear() {
+        recorded.clear();
+    }
+
+    @Test
+    void messagesFromAnotherReplicaAreFiredLocally() throws Exception {
+        notify(CHANNEL, OTHER_INSTANCE + "\tspend\tuser@example.com\t2024\t5");
+
+        InvalidationMessage message = recorded.next("spend", TIMEOUT_MILLIS);
+        assertNotNull(message);
+        assertEquals(List.of("user@example.com", "2024", "5"), message.keys());
+    }
+
+    @Test
+    void messagesFromExternalChannelsAreFiredLocally() throws Exception {
+        notify(EXTERNAL_CHANNEL, OTHER_INSTANCE + "\texternal\tuser@example.com");
+
+        InvalidationMessage message = recorded.next("external", TIMEOUT_MILLIS);
+        assertNotNull(message);
+        assertEquals(List.of("user@example.com"), message.keys());
+    }
+
+    @Test
+    void publishReachesOtherReplicasWhenTheTransactionCommits() throws Exception {
+        try (Connection otherReplica = dataSource.getConnection()) {
+            listen(otherReplica, CHANNEL);
+
+            QuarkusTransaction.requiringNew().run(() -> {
+                bus.publish("preferences", "user@example.com");
+                assertNull(nextNotification(otherReplica, 500), "delivered before commit");
+            });
+
+            PGNotification notification = nextNotification(otherReplica, TIMEOUT_MILLIS);
+            assertNotNull(notification);
+            List<String> parts = List.of(notification.getParameter().split("\t"));
+            assertNotEquals(OTHER_INSTANCE, parts.get(0));
+            assertEquals(List.of("preferences", "user@example.com"), parts.subList(1, parts.size()));
+        }
+    }
+
+    @Test
+    void rolledBackPublishDoesNotReachOtherReplicas() throws Exception {
+        try (Connection otherReplica = dataSource.getConnection()) {
+            listen(otherReplica, CHANNEL);
+
+            assertThrows(IllegalStateException.class, () -> QuarkusTransaction.requiringNew().run(() -> {
+                bus.publish("preferences", "user@example.com");
+                throw new IllegalStateException("roll back");
+            }));
+
+            assertNull(nextNotification(otherReplica, 1000));
+        }
+    }
+
+    @Test
+    void ownMessagesAreFiredOnceLocally() throws Exception {
+        bus.publish("own", "user@example.com");
+
+        assertNotNull(recorded.next("own", TIMEOUT_MILLIS));
+        // The echo from the channel is dropped
+        assertNull(recorded.next("own", 2000));
+    }
+
+    @Test
+    void reconnectingFlushesEverything() throws Exception {
+        try (Connection admin = dataSource.getConnection();
+             Statement statement = admin.createStatement()) {
+            statement.execute("SELECT pg_terminate_backend(pid) FROM pg_stat_activity " +
+                "WHERE query LIKE 'LISTEN \"invalidation_bus_test%' AND pid <> pg_backend_pid()");
+        }
+
+        assertNotNull(recorded.next(InvalidationMessage.ALL_TOPICS, TIMEOUT_MILLIS));
+
+        // Still listening after the reconnect
+        notify(CHANNEL, OTHER_INSTANCE + "\tspend\tuser@example.com");
+        assertNotNull(recorded.next("spend", TIMEOUT_MILLIS));
+    }
+
+    private void notify(String channel, String payload) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            statement.setString(1, channel);
+            statement.setString(2, payload);
+            statement.execute();
+        }
+    }
+
+    private static void listen(Connection connection, String channel) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN \"" + channel + "\"");
+        }
+    }
+
+    private static PGNotification nextNotification(Connection connection, long timeoutMillis) {
+        try {
+            PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications((int) timeoutMillis);
+            return notifications != null && notifications.length > 0 ? notifications[0] : null;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.personalfinance.invalidation;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invalidation messages fired in this instance, in order
+ */
+@ApplicationScoped
+public class RecordedMessages {
+
+    private final BlockingQueue<InvalidationMessage> messages = new LinkedBlockingQueue<>();
+
+    void onInvalidation(@Observes InvalidationMessage message) {
+        messages.add(message);
+    }
+
+    public void clear() {
+        messages.clear();
+    }
+
+    /**
+     * Next message on the topic, or null if none is fired within the timeout
+     */
+    public InvalidationMessage next(String topic, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            InvalidationMessage message = messages.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (message == null || message.topic().equals(topic)) {
+                return message;
+            }
+        }
+    }
+}
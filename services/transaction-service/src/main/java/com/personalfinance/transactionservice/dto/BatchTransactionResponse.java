@@ -0,0 +1,9 @@
+package com.personalfinance.transactionservice.dto;
+
+import java.util.List;
+
+public record BatchTransactionResponse(
+    int createdCount,
+    int rejectedCount,
+    List<BatchTransactionResult> results
+) {}
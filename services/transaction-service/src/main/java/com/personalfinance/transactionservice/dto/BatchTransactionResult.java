@@ -0,0 +1,10 @@
+package com.personalfinance.transactionservice.dto;
+
+import java.util.List;
+
+public record BatchTransactionResult(
+    int index,
+    boolean created,
+    TransactionResponse transaction,
+    List<String> errors
+) {}
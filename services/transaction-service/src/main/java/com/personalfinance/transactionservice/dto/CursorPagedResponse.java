@@ -0,0 +1,10 @@
+package com.personalfinance.transactionservice.dto;
+
+import java.util.List;
+
+public record CursorPagedResponse<T>(
+    List<T> content,
+    int pageSize,
+    String nextCursor,
+    Long totalElements
+) {}
@@ -0,0 +1,11 @@
+package com.personalfinance.transactionservice.dto;
+
+import java.util.List;
+
+public record DashboardResponse(
+    MonthlySummaryResponse monthlySummary,
+    List<ExpenseTypeSummaryResponse> expenseTypeSummary,
+    YearlySummaryResponse currentYearSummary,
+    YearlySummaryResponse previousYearSummary,
+    List<TransactionResponse> recentTransactions
+) {}
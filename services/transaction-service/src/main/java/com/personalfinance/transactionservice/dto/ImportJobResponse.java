@@ -0,0 +1,17 @@
+package com.personalfinance.transactionservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public record ImportJobResponse(
+    UUID jobId,
+    String status,
+    long rowsRead,
+    long rowsImported,
+    long rowsRejected,
+    List<ImportRowError> errors,
+    String failureReason,
+    LocalDateTime startedAt,
+    LocalDateTime finishedAt
+) {}
@@ -0,0 +1,6 @@
+package com.personalfinance.transactionservice.dto;
+
+public record ImportRowError(
+    long line,
+    String reason
+) {}
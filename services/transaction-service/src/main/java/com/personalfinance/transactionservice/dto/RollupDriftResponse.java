@@ -0,0 +1,14 @@
+package com.personalfinance.transactionservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record RollupDriftResponse(
+    int year,
+    int month,
+    UUID expenseTypeId,
+    BigDecimal expectedAmount,
+    BigDecimal rollupAmount,
+    long expectedCount,
+    long rollupCount
+) {}
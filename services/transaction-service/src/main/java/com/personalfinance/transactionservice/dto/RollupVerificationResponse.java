@@ -0,0 +1,9 @@
+package com.personalfinance.transactionservice.dto;
+
+import java.util.List;
+
+public record RollupVerificationResponse(
+    int driftedKeys,
+    List<RollupDriftResponse> drifts,
+    boolean rebuilt
+) {}
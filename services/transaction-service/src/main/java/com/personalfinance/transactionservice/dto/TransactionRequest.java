@@ -1,6 +1,7 @@
 package com.personalfinance.transactionservice.dto;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
@@ -17,6 +18,7 @@ public record TransactionRequest(
 
     @NotNull(message = "Amount is required")
     @DecimalMin(value = "0.01", inclusive = true, message = "Amount must be greater than 0")
+    @Digits(integer = 10, fraction = 2, message = "Amount must have at most 10 digits before and 2 after the decimal point")
     BigDecimal amount,
 
     @Size(max = 500, message = "Description cannot exceed 500 characters")
@@ -0,0 +1,68 @@
+package com.personalfinance.transactionservice.entity;
+
+import com.personalfinance.transactionservice.dto.ImportRowError;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Status of a CSV import, shared by every replica so any of them can report on a job
+ */
+@Entity
+@Table(name = "import_jobs", schema = "transaction_schema")
+public class ImportJob {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    public UUID id;
+
+    @Column(name = "user_email", nullable = false, length = 255)
+    public String userEmail;
+
+    @Column(name = "status", nullable = false, length = 20)
+    public String status = QUEUED;
+
+    @Column(name = "rows_read", nullable = false)
+    public long rowsRead;
+
+    @Column(name = "rows_imported", nullable = false)
+    public long rowsImported;
+
+    @Column(name = "rows_rejected", nullable = false)
+    public long rowsRejected;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "errors", columnDefinition = "jsonb", nullable = false)
+    public List<ImportRowError> errors = List.of();
+
+    @Column(name = "failure_reason", length = 1000)
+    public String failureReason;
+
+    @Column(name = "started_at", nullable = false, updatable = false)
+    public LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    public LocalDateTime finishedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    public LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        startedAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
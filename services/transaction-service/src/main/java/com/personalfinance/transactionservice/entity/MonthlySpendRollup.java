@@ -0,0 +1,60 @@
+package com.personalfinance.transactionservice.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Per-user, per-month, per-expense-type spend totals maintained alongside transactions
+ */
+@Entity
+@Table(name = "monthly_spend_rollups", schema = "transaction_schema")
+@IdClass(MonthlySpendRollup.Key.class)
+public class MonthlySpendRollup {
+
+    @Id
+    @Column(name = "user_email", nullable = false, length = 255)
+    public String userEmail;
+
+    @Id
+    @Column(name = "year", nullable = false)
+    public Integer year;
+
+    @Id
+    @Column(name = "month", nullable = false)
+    public Integer month;
+
+    @Id
+    @Column(name = "expense_type_id", nullable = false)
+    public UUID expenseTypeId;
+
+    @Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+    public BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "transaction_count", nullable = false)
+    public Long transactionCount = 0L;
+
+    public static class Key implements Serializable {
+        public String userEmail;
+        public Integer year;
+        public Integer month;
+        public UUID expenseTypeId;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(userEmail, key.userEmail)
+                && Objects.equals(year, key.year)
+                && Objects.equals(month, key.month)
+                && Objects.equals(expenseTypeId, key.expenseTypeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userEmail, year, month, expenseTypeId);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.personalfinance.transactionservice.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A change to a user's spend in a month (or in every month when year and month are null),
+ * kept for a while after its invalidation was published
+ */
+@Entity
+@Table(name = "spend_changes", schema = "transaction_schema")
+public class SpendChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "sequence")
+    public Long sequence;
+
+    @Column(name = "user_email", nullable = false, length = 255)
+    public String userEmail;
+
+    @Column(name = "year")
+    public Integer year;
+
+    @Column(name = "month")
+    public Integer month;
+
+    @Column(name = "changed_at", nullable = false, insertable = false, updatable = false)
+    public LocalDateTime changedAt;
+}
@@ -0,0 +1,39 @@
+package com.personalfinance.transactionservice.repository;
+
+import com.personalfinance.transactionservice.entity.ImportJob;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@ApplicationScoped
+public class ImportJobRepository implements PanacheRepositoryBase<ImportJob, UUID> {
+
+    /**
+     * Find an import job owned by the user
+     */
+    public Optional<ImportJob> findByIdAndUserEmail(UUID id, String userEmail) {
+        return find("id = ?1 and userEmail = ?2", id, userEmail).firstResultOptional();
+    }
+
+    /**
+     * Fail jobs whose replica stopped before finishing them, seen by a row running imports no longer refresh.
+     * An import runs in one database transaction, so nothing of theirs was imported, and it checks its job
+     * is still running before committing.
+     */
+    public int failAbandoned(LocalDateTime cutoff) {
+        return update("status = ?1, failureReason = ?2, finishedAt = ?3, updatedAt = ?3 " +
+                "where status in (?4, ?5) and updatedAt < ?6",
+            ImportJob.FAILED, "Import was interrupted, please upload the file again", LocalDateTime.now(),
+            ImportJob.QUEUED, ImportJob.RUNNING, cutoff);
+    }
+
+    /**
+     * Delete jobs that finished before the cutoff
+     */
+    public long deleteFinishedBefore(LocalDateTime cutoff) {
+        return delete("status in (?1, ?2) and updatedAt < ?3", ImportJob.COMPLETED, ImportJob.FAILED, cutoff);
+    }
+}
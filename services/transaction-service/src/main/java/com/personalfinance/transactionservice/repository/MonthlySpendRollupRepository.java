@@ -0,0 +1,186 @@
+package com.personalfinance.transactionservice.repository;
+
+import com.personalfinance.transactionservice.dto.RollupDriftResponse;
+import com.personalfinance.transactionservice.entity.MonthlySpendRollup;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@ApplicationScoped
+public class MonthlySpendRollupRepository implements PanacheRepositoryBase<MonthlySpendRollup, MonthlySpendRollup.Key> {
+
+    /**
+     * Add a delta to a rollup bucket, creating it if needed and dropping it once it is empty
+     */
+    public void applyDelta(String userEmail, int year, int month, UUID expenseTypeId,
+                           BigDecimal amountDelta, long countDelta) {
+        getEntityManager()
+            .createNativeQuery("INSERT INTO transaction_schema.monthly_spend_rollups " +
+                        "(user_email, year, month, expense_type_id, total_amount, transaction_count) " +
+                        "VALUES (:userEmail, :year, :month, :expenseTypeId, :amount, :count) " +
+                        "ON CONFLICT (user_email, year, month, expense_type_id) DO UPDATE SET " +
+                        "total_amount = monthly_spend_rollups.total_amount + EXCLUDED.total_amount, " +
+                        "transaction_count = monthly_spend_rollups.transaction_count + EXCLUDED.transaction_count")
+            .setParameter("userEmail", userEmail)
+            .setParameter("year", year)
+            .setParameter("month", month)
+            .setParameter("expenseTypeId", expenseTypeId)
+            .setParameter("amount", amountDelta)
+            .setParameter("count", countDelta)
+            .executeUpdate();
+
+        if (countDelta < 0) {
+            getEntityManager()
+                .createNativeQuery("DELETE FROM transaction_schema.monthly_spend_rollups " +
+                            "WHERE user_email = :userEmail AND year = :year AND month = :month " +
+                            "AND expense_type_id = :expenseTypeId AND transaction_count <= 0")
+                .setParameter("userEmail", userEmail)
+                .setParameter("year", year)
+                .setParameter("month", month)
+                .setParameter("expenseTypeId", expenseTypeId)
+                .executeUpdate();
+        }
+    }
+
+    /**
+     * Total amount and transaction count for a user in a month
+     */
+    public Object[] totalsForMonth(String userEmail, int year, int month) {
+        return getEntityManager()
+            .createQuery("SELECT COALESCE(SUM(r.totalAmount), 0), COALESCE(SUM(r.transactionCount), 0) " +
+                        "FROM MonthlySpendRollup r " +
+                        "WHERE r.userEmail = :userEmail AND r.year = :year AND r.month = :month", Object[].class)
+            .setParameter("userEmail", userEmail)
+            .setParameter("year", year)
+            .setParameter("month", month)
+            .getSingleResult();
+    }
+
+    /**
+     * Get expenses grouped by expense type for a month
+     */
+    public Map<UUID, BigDecimal> sumByExpenseTypeForMonth(String userEmail, int year, int month) {
+        List<MonthlySpendRollup> rollups = list("userEmail = ?1 and year = ?2 and month = ?3",
+            userEmail, year, month);
+
+        Map<UUID, BigDecimal> expenseMap = new HashMap<>();
+        for (MonthlySpendRollup rollup : rollups) {
+            expenseMap.put(rollup.expenseTypeId, rollup.totalAmount);
+        }
+
+        return expenseMap;
+    }
+
+    /**
+     * Get monthly totals for a year
+     */
+    public Map<Integer, BigDecimal> sumByMonthForYear(String userEmail, int year) {
+        List<Object[]> results = getEntityManager()
+            .createQuery("SELECT r.month, SUM(r.totalAmount) FROM MonthlySpendRollup r " +
+                        "WHERE r.userEmail = :userEmail AND r.year = :year " +
+                        "GROUP BY r.month " +
+                        "ORDER BY r.month", Object[].class)
+            .setParameter("userEmail", userEmail)
+            .setParameter("year", year)
+            .getResultList();
+
+        Map<Integer, BigDecimal> monthlyTotals = new HashMap<>();
+        for (Object[] result : results) {
+            monthlyTotals.put((Integer) result[0], (BigDecimal) result[1]);
+        }
+
+        return monthlyTotals;
+    }
+
+    /**
+     * Find all rollup buckets of a user between two months (inclusive)
+     */
+    public List<MonthlySpendRollup> findByUserEmailAndMonthRange(String userEmail, YearMonth from, YearMonth to) {
+        return list("userEmail = ?1 and year >= ?2 and year <= ?3 " +
+                "and year * 12 + month >= ?4 and year * 12 + month <= ?5",
+            userEmail, from.getYear(), to.getYear(),
+            from.getYear() * 12 + from.getMonthValue(), to.getYear() * 12 + to.getMonthValue());
+    }
+
+    /**
+     * Find all rollup buckets of a user for the given years
+     */
+    public List<MonthlySpendRollup> findByUserEmailAndYears(String userEmail, List<Integer> years) {
+        return list("userEmail = ?1 and year in ?2", userEmail, years);
+    }
+
+    /**
+     * Compare the rollup of a user against totals recomputed from raw transactions
+     */
+    @SuppressWarnings("unchecked")
+    public List<RollupDriftResponse> findDrift(String userEmail) {
+        List<Object[]> results = getEntityManager()
+            .createNativeQuery("WITH expected AS (" +
+                        "  SELECT EXTRACT(YEAR FROM transaction_date)::int AS year, " +
+                        "         EXTRACT(MONTH FROM transaction_date)::int AS month, " +
+                        "         expense_type_id, SUM(amount) AS total_amount, COUNT(*) AS transaction_count " +
+                        "  FROM transaction_schema.transactions " +
+                        "  WHERE user_email = :userEmail " +
+                        "  GROUP BY 1, 2, 3" +
+                        "), actual AS (" +
+                        "  SELECT year, month, expense_type_id, total_amount, transaction_count " +
+                        "  FROM transaction_schema.monthly_spend_rollups " +
+                        "  WHERE user_email = :userEmail" +
+                        ") " +
+                        "SELECT COALESCE(e.year, a.year), COALESCE(e.month, a.month), " +
+                        "       COALESCE(e.expense_type_id, a.expense_type_id), " +
+                        "       COALESCE(e.total_amount, 0), COALESCE(a.total_amount, 0), " +
+                        "       COALESCE(e.transaction_count, 0), COALESCE(a.transaction_count, 0) " +
+                        "FROM expected e " +
+                        "FULL OUTER JOIN actual a " +
+                        "  ON e.year = a.year AND e.month = a.month AND e.expense_type_id = a.expense_type_id " +
+                        "WHERE e.total_amount IS DISTINCT FROM a.total_amount " +
+                        "   OR e.transaction_count IS DISTINCT FROM a.transaction_count " +
+                        "ORDER BY 1, 2")
+            .setParameter("userEmail", userEmail)
+            .getResultList();
+
+        List<RollupDriftResponse> drifts = new ArrayList<>();
+        for (Object[] result : results) {
+            drifts.add(new RollupDriftResponse(
+                ((Number) result[0]).intValue(),
+                ((Number) result[1]).intValue(),
+                (UUID) result[2],
+                (BigDecimal) result[3],
+                (BigDecimal) result[4],
+                ((Number) result[5]).longValue(),
+                ((Number) result[6]).longValue()
+            ));
+        }
+
+        return drifts;
+    }
+
+    /**
+     * Recompute the rollup of a user from raw transactions
+     */
+    public void rebuild(String userEmail) {
+        getEntityManager()
+            .createNativeQuery("DELETE FROM transaction_schema.monthly_spend_rollups WHERE user_email = :userEmail")
+            .setParameter("userEmail", userEmail)
+            .executeUpdate();
+
+        getEntityManager()
+            .createNativeQuery("INSERT INTO transaction_schema.monthly_spend_rollups " +
+                        "(user_email, year, month, expense_type_id, total_amount, transaction_count) " +
+                        "SELECT user_email, EXTRACT(YEAR FROM transaction_date)::int, " +
+                        "       EXTRACT(MONTH FROM transaction_date)::int, expense_type_id, SUM(amount), COUNT(*) " +
+                        "FROM transaction_schema.transactions " +
+                        "WHERE user_email = :userEmail " +
+                        "GROUP BY 1, 2, 3, 4")
+            .setParameter("userEmail", userEmail)
+            .executeUpdate();
+    }
+}
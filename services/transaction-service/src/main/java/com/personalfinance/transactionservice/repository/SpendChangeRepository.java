@@ -0,0 +1,42 @@
+package com.personalfinance.transactionservice.repository;
+
+import com.personalfinance.transactionservice.entity.SpendChange;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+
+@ApplicationScoped
+public class SpendChangeRepository implements PanacheRepositoryBase<SpendChange, Long> {
+
+    /**
+     * Record a change to a user's spend in a month, or in every month when year and month are null
+     */
+    public void record(String userEmail, Integer year, Integer month) {
+        getEntityManager()
+            .createNativeQuery("INSERT INTO transaction_schema.spend_changes (user_email, year, month) " +
+                        "VALUES (:userEmail, :year, :month)")
+            .setParameter("userEmail", userEmail)
+            .setParameter("year", year)
+            .setParameter("month", month)
+            .executeUpdate();
+    }
+
+    /**
+     * Delete changes recorded before the cutoff and remember the highest sequence removed
+     *
+     * @return the number of changes deleted
+     */
+    public int pruneBefore(LocalDateTime cutoff) {
+        return ((Number) getEntityManager()
+            .createNativeQuery("WITH pruned AS (" +
+                        "  DELETE FROM transaction_schema.spend_changes WHERE changed_at < :cutoff RETURNING sequence" +
+                        "), marked AS (" +
+                        "  UPDATE transaction_schema.spend_change_pruning " +
+                        "  SET pruned_through = GREATEST(pruned_through, (SELECT MAX(sequence) FROM pruned)) " +
+                        "  WHERE id = 1 AND EXISTS (SELECT 1 FROM pruned)" +
+                        ") SELECT COUNT(*) FROM pruned")
+            .setParameter("cutoff", cutoff)
+            .getSingleResult()).intValue();
+    }
+}
@@ -1,21 +1,31 @@
 package com.personalfinance.transactionservice.repository;
 
+import com.personalfinance.transactionservice.dto.TransactionResponse;
 import com.personalfinance.transactionservice.entity.Transaction;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Parameters;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class TransactionRepository implements PanacheRepository<Transaction> {
 
+    private static final Sort NEWEST_FIRST = Sort.by("transactionDate", Sort.Direction.Descending)
+        .and("id", Sort.Direction.Descending);
+
     /**
      * Find transaction by ID (UUID)
      */
@@ -23,11 +33,19 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
         return find("id", id).firstResult();
     }
 
+    /**
+     * Find transaction by ID and lock its row until the transaction ends, so concurrent
+     * updates and deletes read the values the previous writer committed
+     */
+    public Transaction findByUUIDForUpdate(UUID id) {
+        return find("id", id).withLock(LockModeType.PESSIMISTIC_WRITE).firstResult();
+    }
+
     /**
      * Find transactions with pagination and sorting by date descending
      */
     public List<Transaction> findByUserEmailPaginated(String userEmail, int pageIndex, int pageSize) {
-        return find("userEmail = ?1", Sort.by("transactionDate").descending(), userEmail)
+        return find("userEmail = ?1", NEWEST_FIRST, userEmail)
             .page(Page.of(pageIndex, pageSize))
             .list();
     }
@@ -45,7 +63,7 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
     public List<Transaction> findByUserEmailAndDateRange(String userEmail, LocalDate startDate,
                                                           LocalDate endDate, int pageIndex, int pageSize) {
         return find("userEmail = ?1 and transactionDate >= ?2 and transactionDate <= ?3",
-            Sort.by("transactionDate").descending(), userEmail, startDate, endDate)
+            NEWEST_FIRST, userEmail, startDate, endDate)
             .page(Page.of(pageIndex, pageSize))
             .list();
     }
@@ -64,7 +82,7 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
     public List<Transaction> findByUserEmailAndExpenseType(String userEmail, UUID expenseTypeId,
                                                             int pageIndex, int pageSize) {
         return find("userEmail = ?1 and expenseTypeId = ?2",
-            Sort.by("transactionDate").descending(), userEmail, expenseTypeId)
+            NEWEST_FIRST, userEmail, expenseTypeId)
             .page(Page.of(pageIndex, pageSize))
             .list();
     }
@@ -83,7 +101,7 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
             String userEmail, LocalDate startDate, LocalDate endDate, UUID expenseTypeId,
             int pageIndex, int pageSize) {
         return find("userEmail = ?1 and transactionDate >= ?2 and transactionDate <= ?3 and expenseTypeId = ?4",
-            Sort.by("transactionDate").descending(), userEmail, startDate, endDate, expenseTypeId)
+            NEWEST_FIRST, userEmail, startDate, endDate, expenseTypeId)
             .page(Page.of(pageIndex, pageSize))
             .list();
     }
@@ -97,6 +115,70 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
             userEmail, startDate, endDate, expenseTypeId);
     }
 
+    /**
+     * Find the next page of transactions after a keyset position, newest first.
+     * Filters mirror the paginated finders; a null cursor starts from the newest transaction.
+     */
+    public List<Transaction> findByUserEmailAfterCursor(
+            String userEmail, LocalDate startDate, LocalDate endDate, UUID expenseTypeId,
+            LocalDate cursorDate, UUID cursorId, int limit) {
+        StringBuilder query = new StringBuilder("userEmail = :userEmail");
+        Parameters params = Parameters.with("userEmail", userEmail);
+
+        if (startDate != null && endDate != null) {
+            query.append(" and transactionDate >= :startDate and transactionDate <= :endDate");
+            params.and("startDate", startDate).and("endDate", endDate);
+        }
+        if (expenseTypeId != null) {
+            query.append(" and expenseTypeId = :expenseTypeId");
+            params.and("expenseTypeId", expenseTypeId);
+        }
+        if (cursorDate != null && cursorId != null) {
+            query.append(" and (transactionDate < :cursorDate or (transactionDate = :cursorDate and id < :cursorId))");
+            params.and("cursorDate", cursorDate).and("cursorId", cursorId);
+        }
+
+        return find(query.toString(), NEWEST_FIRST, params)
+            .page(Page.ofSize(limit))
+            .list();
+    }
+
+    /**
+     * Stream transactions newest first as detached responses, for exports.
+     * Rows are pulled from a forward-only cursor in fetch-size chunks and never enter the persistence context,
+     * so the caller must consume the stream inside a transaction.
+     */
+    public Stream<TransactionResponse> streamByUserEmail(String userEmail, LocalDate startDate, LocalDate endDate,
+                                                         UUID expenseTypeId, int fetchSize) {
+        StringBuilder query = new StringBuilder(
+            "SELECT new com.personalfinance.transactionservice.dto.TransactionResponse(" +
+            "t.id, t.userEmail, t.budgetItemId, t.expenseTypeId, t.amount, t.description, " +
+            "t.transactionDate, t.createdAt, t.updatedAt) " +
+            "FROM Transaction t WHERE t.userEmail = :userEmail");
+
+        if (startDate != null && endDate != null) {
+            query.append(" AND t.transactionDate >= :startDate AND t.transactionDate <= :endDate");
+        }
+        if (expenseTypeId != null) {
+            query.append(" AND t.expenseTypeId = :expenseTypeId");
+        }
+        query.append(" ORDER BY t.transactionDate DESC, t.id DESC");
+
+        TypedQuery<TransactionResponse> typedQuery = getEntityManager()
+            .createQuery(query.toString(), TransactionResponse.class)
+            .setParameter("userEmail", userEmail)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+
+        if (startDate != null && endDate != null) {
+            typedQuery.setParameter("startDate", startDate).setParameter("endDate", endDate);
+        }
+        if (expenseTypeId != null) {
+            typedQuery.setParameter("expenseTypeId", expenseTypeId);
+        }
+
+        return typedQuery.getResultStream();
+    }
+
     /**
      * Check if budget item has any transactions
      */
@@ -104,6 +186,17 @@ public class TransactionRepository implements PanacheRepository<Transaction> {
         return count("budgetItemId", budgetItemId) > 0;
     }
 
+    /**
+     * Find which of the given budget items have any transactions
+     */
+    public List<UUID> findBudgetItemIdsWithTransactions(Collection<UUID> budgetItemIds) {
+        return getEntityManager()
+            .createQuery("SELECT DISTINCT t.budgetItemId FROM Transaction t " +
+                        "WHERE t.budgetItemId IN :budgetItemIds", UUID.class)
+            .setParameter("budgetItemIds", budgetItemIds)
+            .getResultList();
+    }
+
     /**
      * Calculate total expenses for a user in a month
      */
@@ -1,6 +1,8 @@
 package com.personalfinance.transactionservice.resource;
 
 import com.personalfinance.transactionservice.dto.*;
+import com.personalfinance.transactionservice.service.TransactionExportService;
+import com.personalfinance.transactionservice.service.TransactionImportService;
 import com.personalfinance.transactionservice.service.TransactionService;
 import io.quarkus.security.Authenticated;
 import jakarta.annotation.security.PermitAll;
@@ -9,6 +11,7 @@ import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -17,10 +20,16 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.RestForm;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Path("/api/v1/transactions")
@@ -37,8 +46,15 @@ public class TransactionResource {
     @Inject
     TransactionService service;
 
+    @Inject
+    TransactionExportService exportService;
+
+    @Inject
+    TransactionImportService importService;
+
     @GET
-    @Operation(summary = "Get transactions", description = "Retrieve paginated transactions with optional filters")
+    @Operation(summary = "Get transactions", description = "Retrieve paginated transactions with optional filters. " +
+        "Passing a cursor (empty for the first page) switches to keyset paging, which skips the total count unless includeTotal is set.")
     @APIResponse(responseCode = "200", description = "Paginated list of transactions",
         content = @Content(schema = @Schema(implementation = PagedResponse.class)))
     public Response getTransactions(
@@ -46,12 +62,21 @@ public class TransactionResource {
             @Parameter(description = "End date (YYYY-MM-DD)") @QueryParam("endDate") String endDate,
             @Parameter(description = "Expense type ID") @QueryParam("expenseTypeId") String expenseTypeId,
             @Parameter(description = "Page number (0-indexed)") @QueryParam("page") @DefaultValue("0") int page,
-            @Parameter(description = "Page size") @QueryParam("pageSize") @DefaultValue("10") int pageSize
+            @Parameter(description = "Page size") @QueryParam("pageSize") @DefaultValue("10") int pageSize,
+            @Parameter(description = "Keyset cursor from a previous nextCursor") @QueryParam("cursor") String cursor,
+            @Parameter(description = "Include total count in cursor mode") @QueryParam("includeTotal") @DefaultValue("false") boolean includeTotal
     ) {
         LocalDate start = startDate != null ? LocalDate.parse(startDate) : null;
         LocalDate end = endDate != null ? LocalDate.parse(endDate) : null;
         UUID expenseType = expenseTypeId != null ? UUID.fromString(expenseTypeId) : null;
 
+        if (cursor != null) {
+            CursorPagedResponse<TransactionResponse> transactions = service.getTransactionsByCursor(
+                extractEmail(), start, end, expenseType, cursor, pageSize, includeTotal
+            );
+            return Response.ok(transactions).build();
+        }
+
         PagedResponse<TransactionResponse> transactions = service.getTransactions(
             extractEmail(), start, end, expenseType, page, pageSize
         );
@@ -59,6 +84,39 @@ public class TransactionResource {
         return Response.ok(transactions).build();
     }
 
+    @GET
+    @Path("/export")
+    @Produces({"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Export transactions", description = "Stream all matching transactions as CSV or NDJSON, newest first")
+    @APIResponse(responseCode = "200", description = "Transaction export stream")
+    @APIResponse(responseCode = "400", description = "Unsupported format")
+    public Response exportTransactions(
+            @Parameter(description = "Start date (YYYY-MM-DD)") @QueryParam("startDate") String startDate,
+            @Parameter(description = "End date (YYYY-MM-DD)") @QueryParam("endDate") String endDate,
+            @Parameter(description = "Expense type ID") @QueryParam("expenseTypeId") String expenseTypeId,
+            @Parameter(description = "Export format (csv or ndjson)") @QueryParam("format") @DefaultValue("csv") String format
+    ) {
+        LocalDate start = startDate != null ? LocalDate.parse(startDate) : null;
+        LocalDate end = endDate != null ? LocalDate.parse(endDate) : null;
+        UUID expenseType = expenseTypeId != null ? UUID.fromString(expenseTypeId) : null;
+
+        TransactionExportService.Format exportFormat;
+        try {
+            exportFormat = TransactionExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported export format: " + format);
+        }
+
+        String email = extractEmail();
+        StreamingOutput stream = output -> exportService.export(email, start, end, expenseType, exportFormat, output);
+
+        boolean csv = exportFormat == TransactionExportService.Format.CSV;
+        return Response.ok(stream)
+            .type(csv ? "text/csv" : "application/x-ndjson")
+            .header("Content-Disposition", "attachment; filename=\"transactions." + (csv ? "csv" : "ndjson") + "\"")
+            .build();
+    }
+
     @GET
     @Path("/{id}")
     @Operation(summary = "Get transaction by ID", description = "Retrieve a specific transaction")
@@ -80,6 +138,55 @@ public class TransactionResource {
         return Response.status(Response.Status.CREATED).entity(transaction).build();
     }
 
+    @POST
+    @Path("/batch")
+    @Operation(summary = "Create transactions in bulk", description = "Create many transactions in one request; each row is validated and reported individually")
+    @APIResponse(responseCode = "200", description = "Per-row creation results",
+        content = @Content(schema = @Schema(implementation = BatchTransactionResponse.class)))
+    @APIResponse(responseCode = "400", description = "Empty or oversized batch")
+    public Response createTransactions(List<TransactionRequest> requests) {
+        BatchTransactionResponse response = service.createTransactions(extractEmail(), requests);
+        return Response.ok(response).build();
+    }
+
+    @POST
+    @Path("/import")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @Operation(summary = "Import bank statement", description = "Queue a CSV file (date, amount, description[, expenseTypeId, budgetItemId]) for background import")
+    @APIResponse(responseCode = "202", description = "Import job accepted",
+        content = @Content(schema = @Schema(implementation = ImportJobResponse.class)))
+    @APIResponse(responseCode = "400", description = "No file uploaded")
+    @APIResponse(responseCode = "503", description = "Import queue is full")
+    public Response importTransactions(
+            @RestForm("file") FileUpload file,
+            @RestForm("hasHeader") @DefaultValue("true") boolean hasHeader,
+            @RestForm("expenseTypeId") UUID expenseTypeId,
+            @RestForm("budgetItemId") UUID budgetItemId
+    ) {
+        if (file == null || file.size() == 0) {
+            throw new BadRequestException("No file uploaded");
+        }
+
+        try {
+            ImportJobResponse job = importService.submit(
+                extractEmail(), file.uploadedFile(), hasHeader, expenseTypeId, budgetItemId);
+            return Response.accepted(job).build();
+        } catch (IOException e) {
+            return Response.status(500).entity("Failed to store uploaded file").build();
+        }
+    }
+
+    @GET
+    @Path("/import/{jobId}")
+    @Operation(summary = "Get import status", description = "Get progress and rejected rows of a bank statement import")
+    @APIResponse(responseCode = "200", description = "Import job status",
+        content = @Content(schema = @Schema(implementation = ImportJobResponse.class)))
+    @APIResponse(responseCode = "404", description = "Import job not found")
+    public Response getImportJob(@PathParam("jobId") UUID jobId) {
+        ImportJobResponse job = importService.getJob(extractEmail(), jobId);
+        return Response.ok(job).build();
+    }
+
     @PUT
     @Path("/{id}")
     @Operation(summary = "Update transaction", description = "Update an existing transaction")
@@ -127,6 +234,20 @@ public class TransactionResource {
         return Response.ok(summary).build();
     }
 
+    @GET
+    @Path("/summary/by-type-range")
+    @Operation(summary = "Get expense type matrix", description = "Get expenses grouped by type for every month in a range, in a columnar layout")
+    @APIResponse(responseCode = "200", description = "Month x expense type matrix",
+        content = @Content(schema = @Schema(implementation = ExpenseTypeMatrixResponse.class)))
+    @APIResponse(responseCode = "400", description = "Invalid month range")
+    public Response getExpenseTypeMatrix(
+            @Parameter(description = "First month (YYYY-MM)") @QueryParam("from") String from,
+            @Parameter(description = "Last month (YYYY-MM)") @QueryParam("to") String to
+    ) {
+        ExpenseTypeMatrixResponse matrix = service.getExpenseTypeMatrix(extractEmail(), parseMonth(from), parseMonth(to));
+        return Response.ok(matrix).build();
+    }
+
     @GET
     @Path("/summary/yearly")
     @Operation(summary = "Get yearly summary", description = "Get monthly breakdown for a year")
@@ -137,6 +258,33 @@ public class TransactionResource {
         return Response.ok(summary).build();
     }
 
+    @GET
+    @Path("/dashboard")
+    @Operation(summary = "Get dashboard data", description = "Get the monthly summary, expense type summary, yearly breakdowns for this and last year, and recent transactions in one call")
+    @APIResponse(responseCode = "200", description = "Dashboard data",
+        content = @Content(schema = @Schema(implementation = DashboardResponse.class)))
+    @APIResponse(responseCode = "400", description = "recent out of range")
+    public Response getDashboard(
+            @Parameter(description = "Year") @QueryParam("year") int year,
+            @Parameter(description = "Month (1-12)") @QueryParam("month") int month,
+            @Parameter(description = "Number of recent transactions (1-50)") @QueryParam("recent") @DefaultValue("5") int recent
+    ) {
+        DashboardResponse dashboard = service.getDashboard(extractEmail(), year, month, recent);
+        return Response.ok(dashboard).build();
+    }
+
+    @POST
+    @Path("/summary/rollup/verify")
+    @Operation(summary = "Verify summary rollup", description = "Recompute the monthly spend rollup from raw transactions and report drift, optionally rebuilding it")
+    @APIResponse(responseCode = "200", description = "Rollup verification report",
+        content = @Content(schema = @Schema(implementation = RollupVerificationResponse.class)))
+    public Response verifyRollup(
+            @Parameter(description = "Rebuild the rollup when drift is found") @QueryParam("rebuild") @DefaultValue("false") boolean rebuild
+    ) {
+        RollupVerificationResponse report = service.verifyRollup(extractEmail(), rebuild);
+        return Response.ok(report).build();
+    }
+
     @GET
     @Path("/spent/{expenseTypeId}")
     @Operation(summary = "Get spent by expense type", description = "Get total spent for an expense type in a month")
@@ -160,6 +308,28 @@ public class TransactionResource {
         return Response.ok(hasTransactions).build();
     }
 
+    @POST
+    @Path("/check-budget-items")
+    @Operation(summary = "Check budget items transactions", description = "Return the subset of the given budget item IDs that have transactions (public endpoint for service-to-service calls)")
+    @APIResponse(responseCode = "200", description = "Budget item IDs that have transactions")
+    @APIResponse(responseCode = "400", description = "Too many budget item IDs")
+    @PermitAll
+    public Response getBudgetItemsWithTransactions(Set<UUID> budgetItemIds) {
+        List<UUID> withTransactions = service.getBudgetItemsWithTransactions(budgetItemIds);
+        return Response.ok(withTransactions).build();
+    }
+
+    private YearMonth parseMonth(String value) {
+        if (value == null) {
+            throw new BadRequestException("Month range requires 'from' and 'to' (YYYY-MM)");
+        }
+        try {
+            return YearMonth.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid month: " + value);
+        }
+    }
+
     private String extractEmail() {
         String email = jwt.getClaim("email");
         return (email != null && !email.isEmpty()) ? email : jwt.getName();
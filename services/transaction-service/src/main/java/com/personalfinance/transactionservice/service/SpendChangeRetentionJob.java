@@ -0,0 +1,41 @@
+package com.personalfinance.transactionservice.service;
+
+import com.personalfinance.transactionservice.repository.SpendChangeRepository;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Prunes the spend change log.
+ * <p>
+ * Consumers replay the log after missing notifications (a restart, a dropped LISTEN connection), so changes
+ * are kept for longer than any such outage should last. A consumer that falls behind the pruned sequence
+ * has to treat all of its derived state as stale.
+ */
+@ApplicationScoped
+public class SpendChangeRetentionJob {
+
+    private static final Logger LOG = Logger.getLogger(SpendChangeRetentionJob.class);
+
+    @Inject
+    SpendChangeRepository repository;
+
+    @ConfigProperty(name = "spend-changes.retention")
+    Duration retention;
+
+    @Scheduled(identity = "spend-change-retention", cron = "{spend-changes.retention.cron}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void prune() {
+        int pruned = repository.pruneBefore(LocalDateTime.now().minus(retention));
+        if (pruned > 0) {
+            LOG.infof("Pruned %d spend changes older than %s", pruned, retention);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.personalfinance.transactionservice.service;
+
+import com.personalfinance.invalidation.InvalidationMessage;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CompositeCacheKey;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+import java.util.List;
+
+/**
+ * Drops cached summaries once a change to the underlying spend has committed, on this replica or another,
+ * so a concurrent read cannot re-cache the pre-commit totals
+ */
+@ApplicationScoped
+public class SummaryCacheInvalidator {
+
+    /**
+     * Invalidation topic for a user's spend; keys are (user) or (user, year, month)
+     */
+    public static final String SPEND_TOPIC = "spend";
+
+    public static final String MONTHLY_SUMMARY_CACHE = "monthly-summary";
+    public static final String EXPENSE_TYPE_SUMMARY_CACHE = "expense-type-summary";
+    public static final String YEARLY_SUMMARY_CACHE = "yearly-summary";
+
+    @Inject
+    @CacheName(MONTHLY_SUMMARY_CACHE)
+    Cache monthlySummaryCache;
+
+    @Inject
+    @CacheName(EXPENSE_TYPE_SUMMARY_CACHE)
+    Cache expenseTypeSummaryCache;
+
+    @Inject
+    @CacheName(YEARLY_SUMMARY_CACHE)
+    Cache yearlySummaryCache;
+
+    void onInvalidation(@Observes(during = TransactionPhase.AFTER_SUCCESS) InvalidationMessage message) {
+        if (!message.matches(SPEND_TOPIC)) {
+            return;
+        }
+
+        List<String> keys = message.keys();
+        if (keys.isEmpty()) {
+            monthlySummaryCache.invalidateAll().await().indefinitely();
+            expenseTypeSummaryCache.invalidateAll().await().indefinitely();
+            yearlySummaryCache.invalidateAll().await().indefinitely();
+            return;
+        }
+
+        String userEmail = keys.get(0);
+        if (keys.size() < 3) {
+            monthlySummaryCache.invalidateIf(key -> isUserKey(key, userEmail)).await().indefinitely();
+            expenseTypeSummaryCache.invalidateIf(key -> isUserKey(key, userEmail)).await().indefinitely();
+            yearlySummaryCache.invalidateIf(key -> isUserKey(key, userEmail)).await().indefinitely();
+            return;
+        }
+
+        Integer year = Integer.valueOf(keys.get(1));
+        Integer month = Integer.valueOf(keys.get(2));
+        CompositeCacheKey monthKey = new CompositeCacheKey(userEmail, year, month);
+        monthlySummaryCache.invalidate(monthKey).await().indefinitely();
+        expenseTypeSummaryCache.invalidate(monthKey).await().indefinitely();
+        yearlySummaryCache.invalidate(new CompositeCacheKey(userEmail, year)).await().indefinitely();
+    }
+
+    private boolean isUserKey(Object key, String userEmail) {
+        return key instanceof CompositeCacheKey composite
+            && userEmail.equals(composite.getKeyElements()[0]);
+    }
+}
@@ -0,0 +1,32 @@
+package com.personalfinance.transactionservice.service;
+
+import jakarta.ws.rs.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset position in the (transactionDate desc, id desc) ordering of a user's transactions
+ */
+public record TransactionCursor(LocalDate transactionDate, UUID id) {
+
+    public String encode() {
+        String raw = transactionDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new TransactionCursor(
+                LocalDate.parse(raw.substring(0, separator)),
+                UUID.fromString(raw.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.personalfinance.transactionservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personalfinance.transactionservice.dto.TransactionResponse;
+import com.personalfinance.transactionservice.repository.TransactionRepository;
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Streams a user's transactions straight from a database cursor into an output stream,
+ * so memory use does not grow with the size of the history.
+ */
+@ApplicationScoped
+public class TransactionExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int FETCH_SIZE = 500;
+    private static final String CSV_HEADER =
+        "id,transactionDate,expenseTypeId,budgetItemId,amount,description,createdAt,updatedAt";
+    // Leading characters that make spreadsheets evaluate a cell (CSV/formula injection)
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    @Inject
+    TransactionRepository repository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Transactional
+    @TransactionConfiguration(timeout = 600)
+    public void export(String userEmail, LocalDate startDate, LocalDate endDate, UUID expenseTypeId,
+                       Format format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        try (Stream<TransactionResponse> rows = repository.streamByUserEmail(
+                userEmail, startDate, endDate, expenseTypeId, FETCH_SIZE)) {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+
+            Iterator<TransactionResponse> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                TransactionResponse row = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+        }
+
+        writer.flush();
+    }
+
+    private void writeCsvRow(Writer writer, TransactionResponse row) throws IOException {
+        writer.write(row.id().toString());
+        writer.write(',');
+        writer.write(row.transactionDate().toString());
+        writer.write(',');
+        writer.write(row.expenseTypeId().toString());
+        writer.write(',');
+        writer.write(row.budgetItemId().toString());
+        writer.write(',');
+        writer.write(row.amount().toPlainString());
+        writer.write(',');
+        writer.write(escapeCsv(row.description()));
+        writer.write(',');
+        writer.write(row.createdAt().toString());
+        writer.write(',');
+        writer.write(row.updatedAt().toString());
+        writer.write('\n');
+    }
+
+    /**
+     * Quote a cell as CSV requires, and defuse values a spreadsheet would run as a formula by prefixing {@code '}
+     */
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean formula = !value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0;
+        if (!formula && value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + (formula ? "'" : "") + value.replace("\"", "\"\"") + '"';
+    }
+}
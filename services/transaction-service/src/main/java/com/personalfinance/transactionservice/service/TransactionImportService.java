@@ -0,0 +1,429 @@
+package com.personalfinance.transactionservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personalfinance.invalidation.InvalidationBus;
+import com.personalfinance.transactionservice.dto.ImportJobResponse;
+import com.personalfinance.transactionservice.dto.ImportRowError;
+import com.personalfinance.transactionservice.entity.ImportJob;
+import com.personalfinance.transactionservice.repository.ImportJobRepository;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports bank statement CSV files in the background.
+ * Rows are streamed through {@link CsvRecordReader} into a temporary staging table with COPY,
+ * validated and mapped there with set-based SQL, then merged into transactions in one INSERT ... SELECT.
+ * Expected columns: date, amount, description and optionally expenseTypeId, budgetItemId;
+ * missing IDs fall back to the defaults given with the upload.
+ * <p>
+ * Job status lives in {@code import_jobs} so any replica can report on it. The final status is written in
+ * the same transaction as the imported rows, so a job is never reported COMPLETED without them or the
+ * other way round. A running import writes the rows read and rejected so far to its row every
+ * {@code transaction-import.progress-interval}, for polling clients; this also keeps it from going stale, so
+ * only the jobs of a stopped replica get failed as abandoned. A job failed that way is never started or
+ * completed afterwards.
+ */
+@ApplicationScoped
+public class TransactionImportService {
+
+    private static final Logger LOG = Logger.getLogger(TransactionImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final long JOB_RETENTION_MINUTES = 60;
+    private static final int MAX_FAILURE_REASON_LENGTH = 1000;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    InvalidationBus invalidationBus;
+
+    @Inject
+    ImportJobRepository jobRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "transaction-import.progress-interval")
+    Duration progressInterval;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        2, 2, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(20),
+        runnable -> {
+            Thread thread = new Thread(runnable, "transaction-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-import-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        heartbeats.shutdownNow();
+    }
+
+    /**
+     * Queue an uploaded CSV file for import and return its job
+     */
+    public ImportJobResponse submit(String userEmail, Path uploadedFile, boolean hasHeader,
+                                    UUID defaultExpenseTypeId, UUID defaultBudgetItemId) throws IOException {
+        // The upload is removed when the request ends, so keep our own copy for the worker
+        Path workFile = Files.createTempFile("transaction-import-", ".csv");
+        Files.move(uploadedFile, workFile, StandardCopyOption.REPLACE_EXISTING);
+
+        ImportJob job = QuarkusTransaction.requiringNew().call(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(JOB_RETENTION_MINUTES);
+            jobRepository.failAbandoned(cutoff);
+            jobRepository.deleteFinishedBefore(cutoff);
+
+            ImportJob created = new ImportJob();
+            created.id = UUID.randomUUID();
+            created.userEmail = userEmail;
+            jobRepository.persist(created);
+            return created;
+        });
+
+        try {
+            executor.execute(() -> run(job.id, userEmail, workFile, hasHeader, defaultExpenseTypeId, defaultBudgetItemId));
+        } catch (RejectedExecutionException e) {
+            QuarkusTransaction.requiringNew().run(() -> jobRepository.deleteById(job.id));
+            Files.deleteIfExists(workFile);
+            throw new ServiceUnavailableException("Too many imports in progress, please retry later");
+        }
+
+        return toResponse(job);
+    }
+
+    /**
+     * Get the status of an import job owned by the user
+     */
+    public ImportJobResponse getJob(String userEmail, UUID jobId) {
+        return jobRepository.findByIdAndUserEmail(jobId, userEmail)
+            .map(this::toResponse)
+            .orElseThrow(() -> new NotFoundException("Import job not found"));
+    }
+
+    private void run(UUID jobId, String userEmail, Path file, boolean hasHeader,
+                     UUID defaultExpenseTypeId, UUID defaultBudgetItemId) {
+        ImportProgress progress = new ImportProgress();
+        ScheduledFuture<?> heartbeat = null;
+        try (Connection connection = dataSource.getConnection()) {
+            if (updateJob(connection, jobId, ImportJob.RUNNING, progress, 0, null, ImportJob.QUEUED) == 0) {
+                LOG.warnf("Transaction import %s was failed as abandoned while queued, not starting it", jobId);
+                return;
+            }
+            long interval = progressInterval.toMillis();
+            heartbeat = heartbeats.scheduleWithFixedDelay(() -> reportProgress(jobId, progress), interval, interval, TimeUnit.MILLISECONDS);
+
+            connection.setAutoCommit(false);
+            try {
+                createStagingTable(connection);
+                copyIntoStaging(connection, progress, file, hasHeader);
+                validateStaging(connection, defaultExpenseTypeId, defaultBudgetItemId);
+                long imported = mergeStaging(connection, userEmail);
+                collectErrors(connection, progress);
+                if (updateJob(connection, jobId, ImportJob.COMPLETED, progress, imported, null, ImportJob.RUNNING) == 0) {
+                    // Failed as abandoned meanwhile, and the user was told to upload the file again
+                    throw new IllegalStateException("Import job " + jobId + " is no longer running");
+                }
+                connection.commit();
+
+                if (imported > 0) {
+                    invalidationBus.publish(SummaryCacheInvalidator.SPEND_TOPIC, userEmail);
+                }
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            LOG.errorf(e, "Transaction import %s failed", jobId);
+            failJob(jobId, progress, e);
+        } finally {
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOG.warnf(e, "Could not delete import file %s", file);
+            }
+        }
+    }
+
+    private void createStagingTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMP TABLE transaction_import_staging (" +
+                "line_no BIGINT NOT NULL, " +
+                "transaction_date TEXT, " +
+                "amount TEXT, " +
+                "description TEXT, " +
+                "expense_type_id TEXT, " +
+                "budget_item_id TEXT, " +
+                "error TEXT" +
+                ") ON COMMIT DROP");
+        }
+    }
+
+    private void copyIntoStaging(Connection connection, ImportProgress progress, Path file, boolean hasHeader)
+            throws SQLException, IOException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+            "COPY transaction_import_staging " +
+            "(line_no, transaction_date, amount, description, expense_type_id, budget_item_id) " +
+            "FROM STDIN WITH (FORMAT csv)");
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvRecordReader csv = new CsvRecordReader(reader);
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE);
+
+            if (hasHeader) {
+                csv.next();
+            }
+
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                progress.rowsRead++;
+
+                if (fields.size() < 3 || fields.size() > 5) {
+                    progress.reject(csv.recordLine(), "Expected 3 to 5 columns but found " + fields.size());
+                    continue;
+                }
+
+                buffer.append(csv.recordLine());
+                for (int i = 0; i < 5; i++) {
+                    buffer.append(',');
+                    String value = i < fields.size() ? fields.get(i).trim() : "";
+                    if (!value.isEmpty()) {
+                        buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+                    }
+                }
+                buffer.append('\n');
+
+                if (buffer.length() >= COPY_BUFFER_SIZE) {
+                    writeToCopy(copyIn, buffer);
+                }
+            }
+
+            writeToCopy(copyIn, buffer);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private void validateStaging(Connection connection, UUID defaultExpenseTypeId, UUID defaultBudgetItemId)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE transaction_import_staging SET " +
+                "expense_type_id = COALESCE(expense_type_id, ?), " +
+                "budget_item_id = COALESCE(budget_item_id, ?)")) {
+            statement.setString(1, defaultExpenseTypeId != null ? defaultExpenseTypeId.toString() : null);
+            statement.setString(2, defaultBudgetItemId != null ? defaultBudgetItemId.toString() : null);
+            statement.executeUpdate();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE transaction_import_staging SET error = CASE " +
+                "WHEN transaction_date IS NULL OR NOT pg_input_is_valid(transaction_date, 'date') " +
+                "  THEN 'Invalid or missing date' " +
+                "WHEN amount IS NULL OR NOT pg_input_is_valid(amount, 'numeric') " +
+                "  THEN 'Invalid or missing amount' " +
+                // Checked before the numeric(12,2) casts below, which would silently round
+                "WHEN scale(amount::numeric) > 2 " +
+                "  THEN 'Amount cannot have more than 2 decimal places' " +
+                "WHEN NOT pg_input_is_valid(amount, 'numeric(12,2)') " +
+                "  THEN 'Invalid or missing amount' " +
+                "WHEN amount::numeric(12,2) < 0.01 " +
+                "  THEN 'Amount must be greater than 0' " +
+                "WHEN length(description) > 500 " +
+                "  THEN 'Description cannot exceed 500 characters' " +
+                "WHEN expense_type_id IS NULL OR NOT pg_input_is_valid(expense_type_id, 'uuid') " +
+                "  THEN 'Invalid or missing expense type ID' " +
+                "WHEN budget_item_id IS NULL OR NOT pg_input_is_valid(budget_item_id, 'uuid') " +
+                "  THEN 'Invalid or missing budget item ID' " +
+                "END");
+        }
+    }
+
+    private long mergeStaging(Connection connection, String userEmail) throws SQLException {
+        long imported;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO transaction_schema.transactions " +
+                "(id, user_email, budget_item_id, expense_type_id, amount, description, transaction_date, created_at, updated_at) " +
+                "SELECT transaction_schema.uuid_generate_v7(), ?, budget_item_id::uuid, expense_type_id::uuid, amount::numeric(12,2), " +
+                "       description, transaction_date::date, NOW(), NOW() " +
+                "FROM transaction_import_staging WHERE error IS NULL")) {
+            statement.setString(1, userEmail);
+            imported = statement.executeLargeUpdate();
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO transaction_schema.monthly_spend_rollups " +
+                "(user_email, year, month, expense_type_id, total_amount, transaction_count) " +
+                "SELECT ?, EXTRACT(YEAR FROM transaction_date::date)::int, EXTRACT(MONTH FROM transaction_date::date)::int, " +
+                "       expense_type_id::uuid, SUM(amount::numeric(12,2)), COUNT(*) " +
+                "FROM transaction_import_staging WHERE error IS NULL " +
+                "GROUP BY 2, 3, 4 " +
+                "ON CONFLICT (user_email, year, month, expense_type_id) DO UPDATE SET " +
+                "total_amount = monthly_spend_rollups.total_amount + EXCLUDED.total_amount, " +
+                "transaction_count = monthly_spend_rollups.transaction_count + EXCLUDED.transaction_count")) {
+            statement.setString(1, userEmail);
+            statement.executeUpdate();
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO transaction_schema.spend_changes (user_email, year, month) " +
+                "SELECT DISTINCT ?, EXTRACT(YEAR FROM transaction_date::date)::int, " +
+                "       EXTRACT(MONTH FROM transaction_date::date)::int " +
+                "FROM transaction_import_staging WHERE error IS NULL")) {
+            statement.setString(1, userEmail);
+            statement.executeUpdate();
+        }
+
+        return imported;
+    }
+
+    private void collectErrors(Connection connection, ImportProgress progress) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery(
+                 "SELECT line_no, error FROM transaction_import_staging WHERE error IS NOT NULL ORDER BY line_no")) {
+            while (results.next()) {
+                progress.reject(results.getLong(1), results.getString(2));
+            }
+        }
+    }
+
+    private void failJob(UUID jobId, ImportProgress progress, Exception cause) {
+        String reason = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        if (reason.length() > MAX_FAILURE_REASON_LENGTH) {
+            reason = reason.substring(0, MAX_FAILURE_REASON_LENGTH);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            updateJob(connection, jobId, ImportJob.FAILED, progress, 0, reason, ImportJob.QUEUED, ImportJob.RUNNING);
+        } catch (SQLException | RuntimeException e) {
+            // Reported as interrupted once the job is abandoned
+            LOG.warnf(e, "Could not record the failure of transaction import %s", jobId);
+        }
+    }
+
+    /**
+     * Write the counters of a running job, which also keeps it from being taken for abandoned; on its own
+     * connection, as the import's is inside its transaction
+     */
+    private void reportProgress(UUID jobId, ImportProgress progress) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "UPDATE transaction_schema.import_jobs SET rows_read = ?, rows_rejected = ?, updated_at = NOW() " +
+                 "WHERE id = ? AND status = ?")) {
+            statement.setLong(1, progress.rowsRead);
+            statement.setLong(2, progress.rowsRejected);
+            statement.setObject(3, jobId);
+            statement.setString(4, ImportJob.RUNNING);
+            statement.executeUpdate();
+        } catch (SQLException | RuntimeException e) {
+            LOG.warnf(e, "Could not report the progress of transaction import %s", jobId);
+        }
+    }
+
+    /**
+     * Move a job to the given status unless it has left all of the expected ones
+     *
+     * @return the number of jobs updated, 0 if the job was no longer in an expected status
+     */
+    private int updateJob(Connection connection, UUID jobId, String status, ImportProgress progress,
+                          long imported, String failureReason, String... expectedStatuses) throws SQLException {
+        boolean finished = ImportJob.COMPLETED.equals(status) || ImportJob.FAILED.equals(status);
+        String errors;
+        try {
+            errors = objectMapper.writeValueAsString(progress.errors);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize import errors", e);
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE transaction_schema.import_jobs SET status = ?, rows_read = ?, rows_imported = ?, " +
+                "rows_rejected = ?, errors = ?::jsonb, failure_reason = ?, " +
+                "finished_at = CASE WHEN ? THEN NOW() END, updated_at = NOW() " +
+                "WHERE id = ? AND status = ANY (?)")) {
+            statement.setString(1, status);
+            statement.setLong(2, progress.rowsRead);
+            statement.setLong(3, imported);
+            statement.setLong(4, progress.rowsRejected);
+            statement.setString(5, errors);
+            statement.setString(6, failureReason);
+            statement.setBoolean(7, finished);
+            statement.setObject(8, jobId);
+            statement.setArray(9, connection.createArrayOf("text", expectedStatuses));
+            return statement.executeUpdate();
+        }
+    }
+
+    private ImportJobResponse toResponse(ImportJob job) {
+        return new ImportJobResponse(job.id, job.status, job.rowsRead, job.rowsImported, job.rowsRejected,
+            job.errors, job.failureReason, job.startedAt, job.finishedAt);
+    }
+
+    /**
+     * Counters of the import running on this worker, written to its job row while it runs and when it finishes.
+     * Only the worker writes them.
+     */
+    private static class ImportProgress {
+        volatile long rowsRead;
+        volatile long rowsRejected;
+        final List<ImportRowError> errors = new ArrayList<>();
+
+        void reject(long line, String reason) {
+            rowsRejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowError(line, reason));
+            }
+        }
+    }
+}
@@ -1,26 +1,63 @@
 package com.personalfinance.transactionservice.service;
 
+import com.personalfinance.invalidation.InvalidationBus;
 import com.personalfinance.transactionservice.dto.*;
+import com.personalfinance.transactionservice.entity.MonthlySpendRollup;
 import com.personalfinance.transactionservice.entity.Transaction;
+import com.personalfinance.transactionservice.repository.MonthlySpendRollupRepository;
+import com.personalfinance.transactionservice.repository.SpendChangeRepository;
 import com.personalfinance.transactionservice.repository.TransactionRepository;
+import io.quarkus.cache.CacheResult;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class TransactionService {
 
+    private static final int MAX_MATRIX_MONTHS = 120;
+    private static final int MAX_BATCH_SIZE = 5000;
+    private static final int MAX_BUDGET_ITEM_CHECK_SIZE = 1000;
+    private static final int MAX_DASHBOARD_RECENT = 50;
+
     @Inject
     TransactionRepository repository;
 
+    @Inject
+    MonthlySpendRollupRepository rollupRepository;
+
+    @Inject
+    SpendChangeRepository spendChangeRepository;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    InvalidationBus invalidationBus;
+
+    // Flushing every JDBC batch keeps the persistence context small without splitting batches
+    @ConfigProperty(name = "quarkus.hibernate-orm.jdbc.statement-batch-size")
+    int batchFlushSize;
+
     /**
      * Get paginated list of transactions with optional filters
      */
@@ -33,26 +70,21 @@ public class TransactionService {
             int pageSize) {
 
         List<Transaction> transactions;
-        long totalCount;
 
         // Apply filters based on provided parameters
         if (startDate != null && endDate != null && expenseTypeId != null) {
             transactions = repository.findByUserEmailDateRangeAndExpenseType(
                 userEmail, startDate, endDate, expenseTypeId, page, pageSize);
-            totalCount = repository.countByUserEmailDateRangeAndExpenseType(
-                userEmail, startDate, endDate, expenseTypeId);
         } else if (startDate != null && endDate != null) {
             transactions = repository.findByUserEmailAndDateRange(
                 userEmail, startDate, endDate, page, pageSize);
-            totalCount = repository.countByUserEmailAndDateRange(userEmail, startDate, endDate);
         } else if (expenseTypeId != null) {
             transactions = repository.findByUserEmailAndExpenseType(
                 userEmail, expenseTypeId, page, pageSize);
-            totalCount = repository.countByUserEmailAndExpenseType(userEmail, expenseTypeId);
         } else {
             transactions = repository.findByUserEmailPaginated(userEmail, page, pageSize);
-            totalCount = repository.countByUserEmail(userEmail);
         }
+        long totalCount = countTransactions(userEmail, startDate, endDate, expenseTypeId);
 
         List<TransactionResponse> responses = transactions.stream()
             .map(this::toResponse)
@@ -63,6 +95,48 @@ public class TransactionService {
         return new PagedResponse<>(responses, page, pageSize, totalCount, totalPages);
     }
 
+    /**
+     * Get a keyset-paginated list of transactions with optional filters.
+     * The total count is only computed when requested.
+     */
+    public CursorPagedResponse<TransactionResponse> getTransactionsByCursor(
+            String userEmail,
+            LocalDate startDate,
+            LocalDate endDate,
+            UUID expenseTypeId,
+            String cursor,
+            int pageSize,
+            boolean includeTotal) {
+
+        if (pageSize < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+
+        TransactionCursor position = (cursor != null && !cursor.isEmpty()) ? TransactionCursor.decode(cursor) : null;
+
+        // Fetch one extra row to know whether another page exists
+        List<Transaction> transactions = repository.findByUserEmailAfterCursor(
+            userEmail, startDate, endDate, expenseTypeId,
+            position != null ? position.transactionDate() : null,
+            position != null ? position.id() : null,
+            pageSize + 1);
+
+        String nextCursor = null;
+        if (transactions.size() > pageSize) {
+            transactions = transactions.subList(0, pageSize);
+            Transaction last = transactions.get(pageSize - 1);
+            nextCursor = new TransactionCursor(last.transactionDate, last.id).encode();
+        }
+
+        List<TransactionResponse> responses = transactions.stream()
+            .map(this::toResponse)
+            .toList();
+
+        Long totalCount = includeTotal ? countTransactions(userEmail, startDate, endDate, expenseTypeId) : null;
+
+        return new CursorPagedResponse<>(responses, pageSize, nextCursor, totalCount);
+    }
+
     /**
      * Get a single transaction by ID
      */
@@ -90,21 +164,87 @@ public class TransactionService {
         transaction.transactionDate = request.transactionDate();
 
         repository.persist(transaction);
+        applyToRollup(transaction, 1);
 
         return toResponse(transaction);
     }
 
+    /**
+     * Create many transactions at once. Every row is validated up front; valid rows are inserted
+     * with JDBC batching and the spend rollup is updated once per affected bucket.
+     * Invalid rows are reported per index and do not block the others.
+     */
+    @Transactional
+    public BatchTransactionResponse createTransactions(String userEmail, List<TransactionRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("At least one transaction is required");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Cannot create more than " + MAX_BATCH_SIZE + " transactions per batch");
+        }
+
+        List<BatchTransactionResult> results = new ArrayList<>(requests.size());
+        Map<MonthlySpendRollup.Key, BigDecimal> amountDeltas = new HashMap<>();
+        Map<MonthlySpendRollup.Key, Long> countDeltas = new HashMap<>();
+        int created = 0;
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            List<String> errors = validate(request);
+            if (!errors.isEmpty()) {
+                results.add(new BatchTransactionResult(i, false, null, errors));
+                continue;
+            }
+
+            Transaction transaction = new Transaction();
+            transaction.userEmail = userEmail;
+            transaction.budgetItemId = request.budgetItemId();
+            transaction.expenseTypeId = request.expenseTypeId();
+            transaction.amount = request.amount();
+            transaction.description = request.description();
+            transaction.transactionDate = request.transactionDate();
+            repository.persist(transaction);
+
+            MonthlySpendRollup.Key key = new MonthlySpendRollup.Key();
+            key.userEmail = userEmail;
+            key.year = transaction.transactionDate.getYear();
+            key.month = transaction.transactionDate.getMonthValue();
+            key.expenseTypeId = transaction.expenseTypeId;
+            amountDeltas.merge(key, transaction.amount, BigDecimal::add);
+            countDeltas.merge(key, 1L, Long::sum);
+
+            results.add(new BatchTransactionResult(i, true, toResponse(transaction), List.of()));
+
+            // Keep the persistence context small; each flush goes out as one JDBC batch
+            if (++created % batchFlushSize == 0) {
+                repository.flush();
+                repository.getEntityManager().clear();
+            }
+        }
+
+        for (Map.Entry<MonthlySpendRollup.Key, BigDecimal> delta : amountDeltas.entrySet()) {
+            MonthlySpendRollup.Key key = delta.getKey();
+            applyToRollup(key.userEmail, key.year, key.month, key.expenseTypeId,
+                delta.getValue(), countDeltas.get(key));
+        }
+
+        return new BatchTransactionResponse(created, requests.size() - created, results);
+    }
+
     /**
      * Update an existing transaction
      */
     @Transactional
     public TransactionResponse updateTransaction(String userEmail, UUID id, TransactionRequest request) {
-        Transaction transaction = repository.findByUUID(id);
+        Transaction transaction = repository.findByUUIDForUpdate(id);
 
         if (transaction == null || !transaction.userEmail.equals(userEmail)) {
             throw new NotFoundException("Transaction not found");
         }
 
+        // Take the old values out of the rollup before they are overwritten
+        applyToRollup(transaction, -1);
+
         transaction.budgetItemId = request.budgetItemId();
         transaction.expenseTypeId = request.expenseTypeId();
         transaction.amount = request.amount();
@@ -112,6 +252,7 @@ public class TransactionService {
         transaction.transactionDate = request.transactionDate();
 
         repository.persist(transaction);
+        applyToRollup(transaction, 1);
 
         return toResponse(transaction);
     }
@@ -121,24 +262,24 @@ public class TransactionService {
      */
     @Transactional
     public void deleteTransaction(String userEmail, UUID id) {
-        Transaction transaction = repository.findByUUID(id);
+        Transaction transaction = repository.findByUUIDForUpdate(id);
 
         if (transaction == null || !transaction.userEmail.equals(userEmail)) {
             throw new NotFoundException("Transaction not found");
         }
 
         repository.delete(transaction);
+        applyToRollup(transaction, -1);
     }
 
     /**
      * Get monthly summary for a specific month
      */
+    @CacheResult(cacheName = SummaryCacheInvalidator.MONTHLY_SUMMARY_CACHE)
     public MonthlySummaryResponse getMonthlySummary(String userEmail, int year, int month) {
-        BigDecimal totalExpenses = repository.sumByUserEmailAndMonth(userEmail, year, month);
-
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        long count = repository.countByUserEmailAndDateRange(userEmail, startDate, endDate);
+        Object[] totals = rollupRepository.totalsForMonth(userEmail, year, month);
+        BigDecimal totalExpenses = (BigDecimal) totals[0];
+        long count = ((Number) totals[1]).longValue();
 
         return new MonthlySummaryResponse(year, month, totalExpenses, count);
     }
@@ -146,8 +287,9 @@ public class TransactionService {
     /**
      * Get expenses grouped by expense type for a month
      */
+    @CacheResult(cacheName = SummaryCacheInvalidator.EXPENSE_TYPE_SUMMARY_CACHE)
     public List<ExpenseTypeSummaryResponse> getExpenseTypeSummary(String userEmail, int year, int month) {
-        Map<UUID, BigDecimal> expenseMap = repository.sumByExpenseTypeForMonth(userEmail, year, month);
+        Map<UUID, BigDecimal> expenseMap = rollupRepository.sumByExpenseTypeForMonth(userEmail, year, month);
 
         return expenseMap.entrySet().stream()
             .map(entry -> new ExpenseTypeSummaryResponse(entry.getKey(), entry.getValue()))
@@ -157,13 +299,113 @@ public class TransactionService {
     /**
      * Get yearly summary with monthly breakdown
      */
+    @CacheResult(cacheName = SummaryCacheInvalidator.YEARLY_SUMMARY_CACHE)
     public YearlySummaryResponse getYearlySummary(String userEmail, int year) {
-        Map<Integer, BigDecimal> monthlyTotals = repository.sumByMonthForYear(userEmail, year);
+        Map<Integer, BigDecimal> monthlyTotals = rollupRepository.sumByMonthForYear(userEmail, year);
+        return toYearlySummary(year, monthlyTotals);
+    }
 
-        BigDecimal yearlyTotal = monthlyTotals.values().stream()
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Get spend per expense type for every month in a range, as a columnar matrix
+     */
+    public ExpenseTypeMatrixResponse getExpenseTypeMatrix(String userEmail, YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        if (from.until(to, ChronoUnit.MONTHS) + 1 > MAX_MATRIX_MONTHS) {
+            throw new BadRequestException("Range cannot exceed " + MAX_MATRIX_MONTHS + " months");
+        }
 
-        return new YearlySummaryResponse(year, monthlyTotals, yearlyTotal);
+        List<MonthlySpendRollup> rollups = rollupRepository.findByUserEmailAndMonthRange(userEmail, from, to);
+
+        List<String> months = new ArrayList<>();
+        for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+            months.add(m.toString());
+        }
+
+        Map<UUID, Integer> columns = new LinkedHashMap<>();
+        for (MonthlySpendRollup rollup : rollups) {
+            columns.putIfAbsent(rollup.expenseTypeId, columns.size());
+        }
+
+        BigDecimal[][] cells = new BigDecimal[months.size()][columns.size()];
+        for (BigDecimal[] row : cells) {
+            Arrays.fill(row, BigDecimal.ZERO);
+        }
+        for (MonthlySpendRollup rollup : rollups) {
+            int row = (int) from.until(YearMonth.of(rollup.year, rollup.month), ChronoUnit.MONTHS);
+            cells[row][columns.get(rollup.expenseTypeId)] = rollup.totalAmount;
+        }
+
+        List<List<BigDecimal>> amounts = Arrays.stream(cells).map(List::of).toList();
+
+        return new ExpenseTypeMatrixResponse(months, List.copyOf(columns.keySet()), amounts);
+    }
+
+    /**
+     * Get everything the dashboard needs for a month in one call: the monthly and by-type summaries,
+     * this year's and last year's monthly breakdown, and the most recent transactions.
+     * All summaries are folded from a single read of the rollup.
+     */
+    public DashboardResponse getDashboard(String userEmail, int year, int month, int recentCount) {
+        if (recentCount < 1 || recentCount > MAX_DASHBOARD_RECENT) {
+            throw new BadRequestException("recent must be between 1 and " + MAX_DASHBOARD_RECENT);
+        }
+
+        List<MonthlySpendRollup> rollups = rollupRepository.findByUserEmailAndYears(userEmail, List.of(year, year - 1));
+
+        BigDecimal monthTotal = BigDecimal.ZERO;
+        long monthCount = 0;
+        Map<UUID, BigDecimal> expenseMap = new HashMap<>();
+        Map<Integer, BigDecimal> currentYearTotals = new HashMap<>();
+        Map<Integer, BigDecimal> previousYearTotals = new HashMap<>();
+
+        for (MonthlySpendRollup rollup : rollups) {
+            Map<Integer, BigDecimal> yearTotals = rollup.year == year ? currentYearTotals : previousYearTotals;
+            yearTotals.merge(rollup.month, rollup.totalAmount, BigDecimal::add);
+
+            if (rollup.year == year && rollup.month == month) {
+                monthTotal = monthTotal.add(rollup.totalAmount);
+                monthCount += rollup.transactionCount;
+                expenseMap.merge(rollup.expenseTypeId, rollup.totalAmount, BigDecimal::add);
+            }
+        }
+
+        List<ExpenseTypeSummaryResponse> expenseTypeSummary = expenseMap.entrySet().stream()
+            .map(entry -> new ExpenseTypeSummaryResponse(entry.getKey(), entry.getValue()))
+            .collect(Collectors.toList());
+
+        List<TransactionResponse> recentTransactions = repository
+            .findByUserEmailAfterCursor(userEmail, null, null, null, null, null, recentCount)
+            .stream()
+            .map(this::toResponse)
+            .toList();
+
+        return new DashboardResponse(
+            new MonthlySummaryResponse(year, month, monthTotal, monthCount),
+            expenseTypeSummary,
+            toYearlySummary(year, currentYearTotals),
+            toYearlySummary(year - 1, previousYearTotals),
+            recentTransactions
+        );
+    }
+
+    /**
+     * Compare the spend rollup with raw transactions, optionally rebuilding it when drift is found
+     */
+    @Transactional
+    public RollupVerificationResponse verifyRollup(String userEmail, boolean rebuild) {
+        List<RollupDriftResponse> drifts = rollupRepository.findDrift(userEmail);
+
+        boolean rebuilt = false;
+        if (rebuild && !drifts.isEmpty()) {
+            rollupRepository.rebuild(userEmail);
+            spendChangeRepository.record(userEmail, null, null);
+            invalidationBus.publish(SummaryCacheInvalidator.SPEND_TOPIC, userEmail);
+            rebuilt = true;
+        }
+
+        return new RollupVerificationResponse(drifts.size(), drifts, rebuilt);
     }
 
     /**
@@ -180,6 +422,65 @@ public class TransactionService {
         return repository.existsByBudgetItemId(budgetItemId);
     }
 
+    /**
+     * Find which of the given budget items have any transactions
+     */
+    public List<UUID> getBudgetItemsWithTransactions(Set<UUID> budgetItemIds) {
+        if (budgetItemIds == null || budgetItemIds.isEmpty()) {
+            return List.of();
+        }
+        if (budgetItemIds.size() > MAX_BUDGET_ITEM_CHECK_SIZE) {
+            throw new BadRequestException("Cannot check more than " + MAX_BUDGET_ITEM_CHECK_SIZE + " budget items per request");
+        }
+        return repository.findBudgetItemIdsWithTransactions(budgetItemIds);
+    }
+
+    private List<String> validate(TransactionRequest request) {
+        if (request == null) {
+            return List.of("Transaction is required");
+        }
+        return validator.validate(request).stream()
+            .map(ConstraintViolation::getMessage)
+            .sorted()
+            .toList();
+    }
+
+    private YearlySummaryResponse toYearlySummary(int year, Map<Integer, BigDecimal> monthlyTotals) {
+        BigDecimal yearlyTotal = monthlyTotals.values().stream()
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        return new YearlySummaryResponse(year, monthlyTotals, yearlyTotal);
+    }
+
+    private long countTransactions(String userEmail, LocalDate startDate, LocalDate endDate, UUID expenseTypeId) {
+        if (startDate != null && endDate != null && expenseTypeId != null) {
+            return repository.countByUserEmailDateRangeAndExpenseType(userEmail, startDate, endDate, expenseTypeId);
+        } else if (startDate != null && endDate != null) {
+            return repository.countByUserEmailAndDateRange(userEmail, startDate, endDate);
+        } else if (expenseTypeId != null) {
+            return repository.countByUserEmailAndExpenseType(userEmail, expenseTypeId);
+        }
+        return repository.countByUserEmail(userEmail);
+    }
+
+    private void applyToRollup(Transaction transaction, int sign) {
+        applyToRollup(
+            transaction.userEmail,
+            transaction.transactionDate.getYear(),
+            transaction.transactionDate.getMonthValue(),
+            transaction.expenseTypeId,
+            sign > 0 ? transaction.amount : transaction.amount.negate(),
+            sign
+        );
+    }
+
+    private void applyToRollup(String userEmail, int year, int month, UUID expenseTypeId,
+                               BigDecimal amountDelta, long countDelta) {
+        rollupRepository.applyDelta(userEmail, year, month, expenseTypeId, amountDelta, countDelta);
+        spendChangeRepository.record(userEmail, year, month);
+        invalidationBus.publish(SummaryCacheInvalidator.SPEND_TOPIC, userEmail, year, month);
+    }
+
     private TransactionResponse toResponse(Transaction transaction) {
         return new TransactionResponse(
             transaction.id,
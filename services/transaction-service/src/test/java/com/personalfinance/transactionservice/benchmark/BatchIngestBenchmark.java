@@ -0,0 +1,66 @@
+package com.personalfinance.transactionservice.benchmark;
+
+import com.personalfinance.transactionservice.TestTokens;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Ingestion throughput of {@code POST /batch} against one {@code POST} per transaction, the way bank-sync
+ * jobs posted rows before. Both paths validate, insert and update the rollup for the same rows.
+ */
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class BatchIngestBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final List<Integer> BATCH_SIZES = List.of(100, 1000);
+
+    @Test
+    void batchAgainstSingleRowInserts() {
+        String email = "bench-ingest-" + UUID.randomUUID() + "@example.com";
+        String token = TestTokens.tokenFor(email);
+        List<Map<String, Object>> rows = rows();
+
+        Benchmark.Result single = Benchmark.run(ROWS + " rows, one POST per row", 1, 5, () ->
+            rows.forEach(row -> given().auth().oauth2(token).contentType(ContentType.JSON).body(row)
+                .post("/api/v1/transactions").then().statusCode(201)));
+        report(single);
+
+        for (int batchSize : BATCH_SIZES) {
+            Benchmark.Result batch = Benchmark.run(ROWS + " rows, POST /batch of " + batchSize, 1, 5, () -> {
+                for (int from = 0; from < ROWS; from += batchSize) {
+                    given().auth().oauth2(token).contentType(ContentType.JSON)
+                        .body(rows.subList(from, Math.min(from + batchSize, ROWS)))
+                        .post("/api/v1/transactions/batch").then().statusCode(200);
+                }
+            });
+            report(batch);
+        }
+    }
+
+    private static void report(Benchmark.Result result) {
+        Benchmark.report("%-48s %,.0f rows/s", result.name(), ROWS / (result.meanMillis() / 1000));
+    }
+
+    private static List<Map<String, Object>> rows() {
+        List<UUID> expenseTypes = IntStream.range(0, 10).mapToObj(i -> UUID.randomUUID()).toList();
+        LocalDate start = LocalDate.now().withDayOfYear(1);
+        return IntStream.range(0, ROWS).mapToObj(i -> Map.<String, Object>of(
+            "budgetItemId", UUID.randomUUID().toString(),
+            "expenseTypeId", expenseTypes.get(i % expenseTypes.size()).toString(),
+            "amount", String.valueOf(1 + i % 200) + ".25",
+            "description", "benchmark row " + i,
+            "transactionDate", start.plusDays(i % 300).toString()
+        )).toList();
+    }
+}
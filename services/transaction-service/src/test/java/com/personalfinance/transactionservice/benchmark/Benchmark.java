@@ -0,0 +1,65 @@
+package com.personalfinance.transactionservice.benchmark;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Minimal timing harness for the {@code *Benchmark} classes run with {@code -Pbenchmark}: runs a body after a warm-up
+ * and reports latency percentiles. Results are printed so a run can be recorded in docs/benchmarks.md.
+ */
+final class Benchmark {
+
+    private Benchmark() {
+    }
+
+    record Result(String name, int iterations, double meanMillis, double p50Millis, double p95Millis, double maxMillis) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-48s n=%-5d mean=%8.2f ms  p50=%8.2f ms  p95=%8.2f ms  max=%8.2f ms",
+                name, iterations, meanMillis, p50Millis, p95Millis, maxMillis);
+        }
+    }
+
+    /**
+     * Time {@code body} {@code iterations} times after {@code warmup} untimed runs;
+     * {@code beforeEach} runs untimed before every iteration
+     */
+    static Result run(String name, int warmup, int iterations, Runnable beforeEach, Runnable body) {
+        for (int i = 0; i < warmup; i++) {
+            beforeEach.run();
+            body.run();
+        }
+
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            beforeEach.run();
+            long start = System.nanoTime();
+            body.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(nanos);
+        Result result = new Result(name, iterations,
+            Arrays.stream(nanos).average().orElse(0) / 1e6,
+            percentile(nanos, 0.50), percentile(nanos, 0.95), nanos[iterations - 1] / 1e6);
+        System.out.println("[benchmark] " + result);
+        return result;
+    }
+
+    static Result run(String name, int warmup, int iterations, Runnable body) {
+        return run(name, warmup, iterations, () -> { }, body);
+    }
+
+    /**
+     * Print a free-form measurement next to the timed results
+     */
+    static void report(String format, Object... args) {
+        System.out.println("[benchmark] " + String.format(Locale.ROOT, format, args));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,120 @@
+package com.personalfinance.transactionservice.benchmark;
+
+import com.personalfinance.transactionservice.TestTokens;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.cache.CacheManager;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * The dashboard endpoint against the five calls the dashboard used to make: monthly summary, by-type
+ * summary, two yearly summaries and a page of recent transactions. Every request carries a bearer token,
+ * so each one pays for token verification as it would in production. The five calls are timed both one
+ * after another (total server work) and concurrently, as the browser issued them (wall time), once with
+ * the summary caches dropped before each iteration and once with them warm. The dashboard endpoint folds its
+ * summaries from one read of the rollup and doesn't go through those caches, so it is timed once.
+ */
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class DashboardBenchmark {
+
+    private static final int YEARS = 2;
+    private static final int TRANSACTIONS_PER_MONTH = 150;
+    private static final int EXPENSE_TYPES = 20;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    CacheManager cacheManager;
+
+    @Test
+    void dashboardAgainstFiveCalls() throws SQLException {
+        String email = "bench-dashboard-" + UUID.randomUUID() + "@example.com";
+        int year = LocalDate.now().getYear();
+        int month = LocalDate.now().getMonthValue();
+        seed(email, year);
+        String token = TestTokens.tokenFor(email);
+
+        List<Runnable> calls = List.of(
+            () -> given().auth().oauth2(token).queryParam("year", year).queryParam("month", month)
+                .get("/api/v1/transactions/summary/monthly").then().statusCode(200),
+            () -> given().auth().oauth2(token).queryParam("year", year).queryParam("month", month)
+                .get("/api/v1/transactions/summary/by-type").then().statusCode(200),
+            () -> given().auth().oauth2(token).queryParam("year", year)
+                .get("/api/v1/transactions/summary/yearly").then().statusCode(200),
+            () -> given().auth().oauth2(token).queryParam("year", year - 1)
+                .get("/api/v1/transactions/summary/yearly").then().statusCode(200),
+            () -> given().auth().oauth2(token).queryParam("page", 0).queryParam("pageSize", 5)
+                .get("/api/v1/transactions").then().statusCode(200));
+        Runnable fiveCalls = () -> calls.forEach(Runnable::run);
+        Runnable dashboard = () -> given().auth().oauth2(token)
+            .queryParam("year", year).queryParam("month", month).queryParam("recent", 5)
+            .get("/api/v1/transactions/dashboard").then().statusCode(200);
+
+        Benchmark.report("dashboard: %d years x %d transactions/month over %d expense types",
+            YEARS, TRANSACTIONS_PER_MONTH, EXPENSE_TYPES);
+        try (ExecutorService browser = Executors.newFixedThreadPool(calls.size())) {
+            Runnable fiveConcurrentCalls = () -> CompletableFuture.allOf(calls.stream()
+                .map(call -> CompletableFuture.runAsync(call, browser))
+                .toArray(CompletableFuture[]::new)).join();
+
+            Benchmark.run("five calls in sequence, summary caches cleared", 50, 300, this::clearCaches, fiveCalls);
+            Benchmark.run("five calls concurrently, summary caches cleared", 50, 300, this::clearCaches, fiveConcurrentCalls);
+            Benchmark.run("five calls in sequence, summary caches warm", 50, 300, fiveCalls);
+            Benchmark.run("five calls concurrently, summary caches warm", 50, 300, fiveConcurrentCalls);
+            Benchmark.run("dashboard endpoint, not cached", 50, 300, dashboard);
+        }
+    }
+
+    private void clearCaches() {
+        cacheManager.getCacheNames().forEach(name ->
+            cacheManager.getCache(name).orElseThrow().invalidateAll().await().indefinitely());
+    }
+
+    private void seed(String email, int year) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO transaction_schema.transactions " +
+                    "(id, user_email, budget_item_id, expense_type_id, amount, description, transaction_date, created_at, updated_at) " +
+                    "SELECT transaction_schema.uuid_generate_v7(), ?, gen_random_uuid(), " +
+                    "       ('00000000-0000-0000-0000-' || lpad((n % ?)::text, 12, '0'))::uuid, " +
+                    "       round((random() * 200 + 1)::numeric, 2), 'benchmark', " +
+                    "       make_date(?, 1, 1) + ((n * 365 * ?) / (? * 12 * ?)) * INTERVAL '1 day', NOW(), NOW() " +
+                    "FROM generate_series(0, ? * 12 * ? - 1) AS n")) {
+                statement.setString(1, email);
+                statement.setInt(2, EXPENSE_TYPES);
+                statement.setInt(3, year - YEARS + 1);
+                statement.setInt(4, YEARS);
+                statement.setInt(5, YEARS);
+                statement.setInt(6, TRANSACTIONS_PER_MONTH);
+                statement.setInt(7, YEARS);
+                statement.setInt(8, TRANSACTIONS_PER_MONTH);
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO transaction_schema.monthly_spend_rollups " +
+                    "(user_email, year, month, expense_type_id, total_amount, transaction_count) " +
+                    "SELECT user_email, EXTRACT(YEAR FROM transaction_date)::int, EXTRACT(MONTH FROM transaction_date)::int, " +
+                    "       expense_type_id, SUM(amount), COUNT(*) " +
+                    "FROM transaction_schema.transactions WHERE user_email = ? GROUP BY 1, 2, 3, 4")) {
+                statement.setString(1, email);
+                statement.executeUpdate();
+            }
+        }
+    }
+}
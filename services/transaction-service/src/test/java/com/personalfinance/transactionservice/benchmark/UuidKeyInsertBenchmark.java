@@ -0,0 +1,117 @@
+package com.personalfinance.transactionservice.benchmark;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.hibernate.id.uuid.UuidVersion7Strategy;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Insert cost and index size of random UUIDv4 keys against the time-ordered UUIDv7 keys Hibernate now
+ * generates. Each variant loads the same rows into a copy of the transactions table, with all of its
+ * indexes, as JDBC batches committed one at a time like POST /batch does.
+ */
+@QuarkusTest
+class UuidKeyInsertBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int BATCH_SIZE = 1000;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Test
+    void randomAgainstTimeOrderedKeys() throws SQLException {
+        Benchmark.report("uuid keys: %,d rows in batches of %d", ROWS, BATCH_SIZE);
+        load("v4", UUID::randomUUID);
+        load("v7", () -> UuidVersion7Strategy.INSTANCE.generateUuid(null));
+    }
+
+    private void load(String variant, Supplier<UUID> keys) throws SQLException {
+        String table = "transaction_schema.benchmark_uuid_" + variant;
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + table);
+                statement.execute("CREATE TABLE " + table + " (LIKE transaction_schema.transactions INCLUDING ALL)");
+                statement.execute("CHECKPOINT");
+            }
+
+            long walBefore = currentWalLsn(connection);
+            connection.setAutoCommit(false);
+            String userEmail = "bench-uuid@example.com";
+            UUID budgetItemId = UUID.randomUUID();
+            UUID expenseTypeId = UUID.randomUUID();
+            LocalDate start = LocalDate.now().minusYears(3);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            int[] nextRow = {0};
+
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table +
+                    " (id, user_email, budget_item_id, expense_type_id, amount, description, transaction_date, created_at, updated_at)" +
+                    " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                Benchmark.Result result = Benchmark.run("insert batch of " + BATCH_SIZE + ", uuid " + variant,
+                    0, ROWS / BATCH_SIZE, () -> {
+                        try {
+                            for (int i = 0; i < BATCH_SIZE; i++, nextRow[0]++) {
+                                insert.setObject(1, keys.get());
+                                insert.setString(2, userEmail);
+                                insert.setObject(3, budgetItemId);
+                                insert.setObject(4, expenseTypeId);
+                                insert.setBigDecimal(5, BigDecimal.valueOf(nextRow[0] % 20000, 2));
+                                insert.setString(6, "benchmark row");
+                                insert.setDate(7, Date.valueOf(start.plusDays(nextRow[0] % 1000)));
+                                insert.setTimestamp(8, now);
+                                insert.setTimestamp(9, now);
+                                insert.addBatch();
+                            }
+                            insert.executeBatch();
+                            connection.commit();
+                        } catch (SQLException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                Benchmark.report("%-48s %,.0f rows/s", "uuid " + variant + " throughput",
+                    BATCH_SIZE / (result.meanMillis() / 1000));
+            }
+            connection.setAutoCommit(true);
+
+            long walBytes = currentWalLsn(connection) - walBefore;
+            try (Statement statement = connection.createStatement();
+                 ResultSet sizes = statement.executeQuery(
+                     "SELECT pg_relation_size('" + table + "_pkey'), pg_indexes_size('" + table + "'), " +
+                     "pg_relation_size('" + table + "')")) {
+                sizes.next();
+                Benchmark.report("%-48s pk %,.1f MB, all indexes %,.1f MB, heap %,.1f MB, WAL %,.1f MB",
+                    "uuid " + variant + " sizes", mb(sizes.getLong(1)), mb(sizes.getLong(2)), mb(sizes.getLong(3)),
+                    mb(walBytes));
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE " + table);
+            }
+        }
+    }
+
+    private static long currentWalLsn(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet lsn = statement.executeQuery("SELECT pg_current_wal_lsn() - '0/0'::pg_lsn")) {
+            lsn.next();
+            return lsn.getLong(1);
+        }
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.personalfinance.transactionservice.service;
+
+import com.personalfinance.transactionservice.dto.TransactionRequest;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class TransactionExportServiceTest {
+
+    @Inject
+    TransactionService transactionService;
+
+    @Inject
+    TransactionExportService exportService;
+
+    @Test
+    void csvDefusesDescriptionsASpreadsheetWouldRunAsFormulas() throws Exception {
+        String email = "export-" + UUID.randomUUID() + "@example.com";
+        List<String> descriptions = List.of("=HYPERLINK(\"http://example.com\",\"x\")", "+1", "-2", "@SUM(A1)",
+            "\tindented", "groceries, weekly", "plain");
+        LocalDate date = LocalDate.of(2024, 7, 1);
+        for (int i = 0; i < descriptions.size(); i++) {
+            transactionService.createTransaction(email, new TransactionRequest(UUID.randomUUID(), UUID.randomUUID(),
+                new BigDecimal("1.00"), descriptions.get(i), date.plusDays(i)));
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(email, null, null, null, TransactionExportService.Format.CSV, output);
+
+        // The description is the sixth column and only the two timestamps follow it
+        List<String> cells = output.toString(StandardCharsets.UTF_8).lines()
+            .skip(1)
+            .map(line -> line.split(",", 6)[5])
+            .map(rest -> rest.substring(0, rest.lastIndexOf(',', rest.lastIndexOf(',') - 1)))
+            .sorted()
+            .toList();
+        assertEquals(List.of(
+            "\"'\tindented\"",
+            "\"'+1\"",
+            "\"'-2\"",
+            "\"'=HYPERLINK(\"\"http://example.com\"\",\"\"x\"\")\"",
+            "\"'@SUM(A1)\"",
+            "\"groceries, weekly\"",
+            "plain"
+        ).stream().sorted().toList(), cells);
+    }
+}
@@ -0,0 +1,224 @@
+package com.personalfinance.transactionservice.service;
+
+import com.personalfinance.transactionservice.TestTokens;
+import com.personalfinance.transactionservice.entity.ImportJob;
+import com.personalfinance.transactionservice.repository.ImportJobRepository;
+import com.personalfinance.transactionservice.repository.TransactionRepository;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class TransactionImportServiceTest {
+
+    @Inject
+    ImportJobRepository jobRepository;
+
+    @Inject
+    TransactionRepository transactionRepository;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "transaction-import.progress-interval")
+    Duration progressInterval;
+
+    @Test
+    void rejectsAmountsWithMoreThanTwoDecimalsInsteadOfRounding() {
+        String email = "import-" + UUID.randomUUID() + "@example.com";
+        String csv = """
+            date,amount,description
+            2024-03-01,12.34,groceries
+            2024-03-02,12.345,rounded
+            2024-03-03,1.5,coffee
+            """;
+
+        JsonPath job = awaitFinished(email, submit(email, csv));
+
+        assertEquals(ImportJob.COMPLETED, job.getString("status"));
+        assertEquals(3, job.getLong("rowsRead"));
+        assertEquals(2, job.getLong("rowsImported"));
+        List<Map<String, Object>> errors = job.getList("errors");
+        assertEquals(1, errors.size());
+        assertEquals(3, ((Number) errors.get(0).get("line")).intValue());
+        assertEquals("Amount cannot have more than 2 decimal places", errors.get(0).get("reason"));
+
+        BigDecimal total = given()
+            .auth().oauth2(TestTokens.tokenFor(email))
+            .queryParam("year", 2024).queryParam("month", 3)
+            .get("/api/v1/transactions/summary/monthly")
+            .then().statusCode(200)
+            .extract().jsonPath().getObject("totalExpenses", BigDecimal.class);
+        assertEquals(0, new BigDecimal("13.84").compareTo(total));
+    }
+
+    @Test
+    void jobStatusIsReadFromTheDatabase() {
+        String email = "import-" + UUID.randomUUID() + "@example.com";
+        UUID jobId = submit(email, "date,amount,description\n2024-04-01,10.00,rent\n");
+        awaitFinished(email, jobId);
+
+        // Any replica sees the same row
+        ImportJob stored = QuarkusTransaction.requiringNew().call(() -> jobRepository.findById(jobId));
+        assertEquals(email, stored.userEmail);
+        assertEquals(ImportJob.COMPLETED, stored.status);
+        assertEquals(1, stored.rowsImported);
+        assertTrue(stored.finishedAt != null);
+
+        given()
+            .auth().oauth2(TestTokens.tokenFor("someone-else@example.com"))
+            .get("/api/v1/transactions/import/" + jobId)
+            .then().statusCode(404);
+    }
+
+    @Test
+    void progressIsReportedWhileTheImportRuns() throws Exception {
+        String email = "import-" + UUID.randomUUID() + "@example.com";
+        StringBuilder csv = new StringBuilder("date,amount,description\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i % 100 == 0 ? "2024-06-01,1.00\n" : "2024-06-01,1.00,row " + i + "\n");
+        }
+        UUID jobId;
+
+        // Stalls the import at the merge, after every row was read
+        try (Connection lock = dataSource.getConnection()) {
+            lock.setAutoCommit(false);
+            try (Statement statement = lock.createStatement()) {
+                statement.execute("LOCK TABLE transaction_schema.transactions IN SHARE MODE");
+            }
+
+            jobId = submit(email, csv.toString());
+            Instant deadline = Instant.now().plus(progressInterval.multipliedBy(3));
+            ImportJob job = awaitStatus(jobId, ImportJob.RUNNING);
+            while (job.rowsRead < 1000 && Instant.now().isBefore(deadline)) {
+                Thread.sleep(100);
+                job = job(jobId);
+            }
+
+            assertEquals(ImportJob.RUNNING, job.status);
+            assertEquals(1000, job.rowsRead);
+            assertEquals(10, job.rowsRejected);
+            lock.rollback();
+        }
+
+        JsonPath finished = awaitFinished(email, jobId);
+        assertEquals(ImportJob.COMPLETED, finished.getString("status"));
+        assertEquals(990, finished.getLong("rowsImported"));
+    }
+
+    @Test
+    void jobsFailedAsAbandonedAreNeverCompletedOrStarted() throws Exception {
+        String email = "import-" + UUID.randomUUID() + "@example.com";
+        String csv = "date,amount,description\n2024-05-01,10.00,rent\n";
+        UUID first;
+        UUID second;
+        UUID queued;
+
+        // Imports stall at the merge while the lock is held, which leaves both workers busy
+        try (Connection lock = dataSource.getConnection()) {
+            lock.setAutoCommit(false);
+            try (Statement statement = lock.createStatement()) {
+                statement.execute("LOCK TABLE transaction_schema.transactions IN SHARE MODE");
+            }
+
+            first = submit(email, csv);
+            second = submit(email, csv);
+            queued = submit(email, csv);
+            LocalDateTime running = awaitStatus(first, ImportJob.RUNNING).updatedAt;
+            awaitStatus(second, ImportJob.RUNNING);
+            assertEquals(ImportJob.QUEUED, job(queued).status);
+
+            // Still running, so not stale
+            Instant deadline = Instant.now().plus(progressInterval.multipliedBy(3));
+            while (!job(first).updatedAt.isAfter(running) && Instant.now().isBefore(deadline)) {
+                Thread.sleep(100);
+            }
+            assertTrue(job(first).updatedAt.isAfter(running));
+
+            // As a submit would an hour later if the heartbeats had stopped
+            QuarkusTransaction.requiringNew().run(() -> jobRepository.failAbandoned(LocalDateTime.now().plusMinutes(1)));
+            lock.rollback();
+        }
+
+        // The workers are done with the failed jobs once they have run the imports queued after them
+        String other = "import-" + UUID.randomUUID() + "@example.com";
+        UUID afterFirst = submit(other, csv);
+        UUID afterSecond = submit(other, csv);
+        assertEquals(ImportJob.COMPLETED, awaitFinished(other, afterFirst).getString("status"));
+        assertEquals(ImportJob.COMPLETED, awaitFinished(other, afterSecond).getString("status"));
+
+        for (UUID jobId : List.of(first, second, queued)) {
+            ImportJob job = job(jobId);
+            assertEquals(ImportJob.FAILED, job.status);
+            assertEquals("Import was interrupted, please upload the file again", job.failureReason);
+        }
+        assertEquals(0L, QuarkusTransaction.requiringNew().call(() -> transactionRepository.count("userEmail", email)));
+    }
+
+    private ImportJob job(UUID jobId) {
+        return QuarkusTransaction.requiringNew().call(() -> jobRepository.findById(jobId));
+    }
+
+    private ImportJob awaitStatus(UUID jobId, String status) throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+        ImportJob job = job(jobId);
+        while (!status.equals(job.status) && Instant.now().isBefore(deadline)) {
+            Thread.sleep(50);
+            job = job(jobId);
+        }
+        assertEquals(status, job.status);
+        return job;
+    }
+
+    private UUID submit(String email, String csv) {
+        return UUID.fromString(given()
+            .auth().oauth2(TestTokens.tokenFor(email))
+            .multiPart("file", "statement.csv", csv.getBytes(), "text/csv")
+            .multiPart("expenseTypeId", UUID.randomUUID().toString())
+            .multiPart("budgetItemId", UUID.randomUUID().toString())
+            .post("/api/v1/transactions/import")
+            .then().statusCode(202)
+            .extract().jsonPath().getString("jobId"));
+    }
+
+    private JsonPath awaitFinished(String email, UUID jobId) {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+        while (true) {
+            JsonPath job = given()
+                .auth().oauth2(TestTokens.tokenFor(email))
+                .get("/api/v1/transactions/import/" + jobId)
+                .then().statusCode(200)
+                .extract().jsonPath();
+            String status = job.getString("status");
+            if (ImportJob.COMPLETED.equals(status) || ImportJob.FAILED.equals(status) || Instant.now().isAfter(deadline)) {
+                return job;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return job;
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.personalfinance.transactionservice.service;
+
+import com.personalfinance.transactionservice.dto.TransactionRequest;
+import com.personalfinance.transactionservice.dto.TransactionResponse;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@QuarkusTest
+class TransactionServiceTest {
+
+    private static final int WRITERS = 8;
+
+    @Inject
+    TransactionService service;
+
+    @Test
+    void concurrentUpdatesKeepTheRollupInStep() throws Exception {
+        String email = "concurrent-" + UUID.randomUUID() + "@example.com";
+        UUID expenseTypeId = UUID.randomUUID();
+        LocalDate date = LocalDate.of(2024, 5, 10);
+        TransactionResponse created = service.createTransaction(email, request(expenseTypeId, "10.00", date));
+
+        runConcurrently(writer -> () -> service.updateTransaction(email, created.id(),
+            request(expenseTypeId, (writer + 1) + "0.00", date.plusMonths(writer % 3))));
+
+        assertEquals(0, service.verifyRollup(email, false).driftedKeys());
+    }
+
+    @Test
+    void concurrentDeletesRemoveTheAmountOnce() throws Exception {
+        String email = "concurrent-" + UUID.randomUUID() + "@example.com";
+        UUID expenseTypeId = UUID.randomUUID();
+        LocalDate date = LocalDate.of(2024, 6, 10);
+        service.createTransaction(email, request(expenseTypeId, "25.00", date));
+        TransactionResponse doomed = service.createTransaction(email, request(expenseTypeId, "40.00", date));
+
+        List<Throwable> failures = runConcurrently(writer -> () -> {
+            service.deleteTransaction(email, doomed.id());
+            return null;
+        });
+
+        assertEquals(WRITERS - 1, failures.size());
+        failures.forEach(failure -> assertInstanceOf(NotFoundException.class, failure));
+        assertEquals(0, service.verifyRollup(email, false).driftedKeys());
+        assertEquals(0, new BigDecimal("25.00").compareTo(service.getMonthlySummary(email, 2024, 6).totalExpenses()));
+    }
+
+    private static TransactionRequest request(UUID expenseTypeId, String amount, LocalDate date) {
+        return new TransactionRequest(UUID.randomUUID(), expenseTypeId, new BigDecimal(amount), "concurrent", date);
+    }
+
+    /**
+     * Start every writer at once and collect what they threw
+     */
+    private static List<Throwable> runConcurrently(WriterFactory writers) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(WRITERS)) {
+            for (int writer = 0; writer < WRITERS; writer++) {
+                Callable<?> body = writers.create(writer);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return body.call();
+                }));
+            }
+            start.countDown();
+        }
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        return failures;
+    }
+
+    @FunctionalInterface
+    private interface WriterFactory {
+        Callable<?> create(int writer);
+    }
+}
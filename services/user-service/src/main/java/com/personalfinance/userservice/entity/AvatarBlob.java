@@ -0,0 +1,23 @@
+package com.personalfinance.userservice.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reference count of a content-addressed avatar blob; unreferenced blobs are removed by the sweeper
+ */
+@Entity
+@Table(name = "avatar_blobs", schema = "user_schema")
+public class AvatarBlob {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    public String hash;
+
+    @Column(name = "ref_count", nullable = false)
+    public Integer refCount;
+
+    @Column(name = "updated_at", nullable = false)
+    public LocalDateTime updatedAt;
+}
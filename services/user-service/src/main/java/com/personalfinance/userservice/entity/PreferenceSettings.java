@@ -0,0 +1,36 @@
+package com.personalfinance.userservice.entity;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Typed contents of the {@code preferences} JSONB column; missing values fall back to the defaults.
+ * Keys this version doesn't know are kept in {@code extras} and written back, so a save never erases them.
+ */
+public record PreferenceSettings(
+    String currency,
+    Integer emergencyFundMonths,
+    Double monthlySalary,
+    Double emergencyFundSaved,
+    @JsonAnySetter @JsonAnyGetter Map<String, Object> extras
+) {
+
+    public static final PreferenceSettings DEFAULTS = new PreferenceSettings(null, null, null, null);
+
+    public PreferenceSettings {
+        currency = currency != null ? currency : "USD";
+        emergencyFundMonths = emergencyFundMonths != null ? emergencyFundMonths : 3;
+        monthlySalary = monthlySalary != null ? monthlySalary : 0.0;
+        emergencyFundSaved = emergencyFundSaved != null ? emergencyFundSaved : 0.0;
+        // Not Map.copyOf, as JSON values may be null
+        extras = extras != null ? Collections.unmodifiableMap(new LinkedHashMap<>(extras)) : Map.of();
+    }
+
+    public PreferenceSettings(String currency, Integer emergencyFundMonths, Double monthlySalary, Double emergencyFundSaved) {
+        this(currency, emergencyFundMonths, monthlySalary, emergencyFundSaved, null);
+    }
+}
@@ -2,10 +2,10 @@ package com.personalfinance.userservice.entity;
 
 import jakarta.persistence.*;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
 import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -14,7 +14,7 @@ import java.util.UUID;
 public class UserPreferences {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
     public UUID id;
 
     @Column(name = "email", nullable = false, unique = true, length = 255)
@@ -22,11 +22,23 @@ public class UserPreferences {
 
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "preferences", columnDefinition = "jsonb", nullable = false)
-    public Map<String, Object> preferences = new HashMap<>();
+    public PreferenceSettings preferences = PreferenceSettings.DEFAULTS;
 
+    // SHA-256 content address of the original upload, or a flat file name for avatars uploaded before that
     @Column(name = "avatar_path", length = 500)
     public String avatarPath;
 
+    @Column(name = "avatar_content_type", length = 100)
+    public String avatarContentType;
+
+    @Column(name = "avatar_variant_content_type", length = 100)
+    public String avatarVariantContentType;
+
+    // Variant edge length -> content address
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "avatar_variants", columnDefinition = "jsonb")
+    public Map<String, String> avatarVariants;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     public LocalDateTime createdAt;
 
@@ -38,7 +50,7 @@ public class UserPreferences {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
         if (preferences == null) {
-            preferences = new HashMap<>();
+            preferences = PreferenceSettings.DEFAULTS;
         }
     }
 
@@ -0,0 +1,73 @@
+package com.personalfinance.userservice.repository;
+
+import com.personalfinance.userservice.entity.AvatarBlob;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ApplicationScoped
+public class AvatarBlobRepository implements PanacheRepositoryBase<AvatarBlob, String> {
+
+    /**
+     * Record an unreferenced blob before its file is stored, so the sweeper removes the file should no
+     * reference ever be taken. An existing row is touched to restart its grace period.
+     */
+    public void register(String hash) {
+        getEntityManager()
+            .createNativeQuery("INSERT INTO user_schema.avatar_blobs (hash, ref_count, updated_at) " +
+                        "VALUES (:hash, 0, NOW()) " +
+                        "ON CONFLICT (hash) DO UPDATE SET updated_at = NOW()")
+            .setParameter("hash", hash)
+            .executeUpdate();
+    }
+
+    /**
+     * Take a reference on a registered blob.
+     * The row lock this takes makes a concurrent sweep of the same blob wait for the caller's transaction.
+     *
+     * @return false if the blob is not registered, e.g. because it was swept
+     */
+    public boolean acquire(String hash) {
+        return getEntityManager()
+            .createNativeQuery("UPDATE user_schema.avatar_blobs " +
+                        "SET ref_count = ref_count + 1, updated_at = NOW() " +
+                        "WHERE hash = :hash")
+            .setParameter("hash", hash)
+            .executeUpdate() == 1;
+    }
+
+    /**
+     * Drop a reference on a blob; the blob itself is left for the sweeper
+     */
+    public void release(String hash) {
+        getEntityManager()
+            .createNativeQuery("UPDATE user_schema.avatar_blobs " +
+                        "SET ref_count = GREATEST(ref_count - 1, 0), updated_at = NOW() " +
+                        "WHERE hash = :hash")
+            .setParameter("hash", hash)
+            .executeUpdate();
+    }
+
+    /**
+     * Lock a batch of blobs that have been unreferenced since before the cutoff, skipping rows another
+     * replica or an in-flight upload holds
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> lockUnreferenced(LocalDateTime cutoff, int limit) {
+        return getEntityManager()
+            .createNativeQuery("SELECT hash FROM user_schema.avatar_blobs " +
+                        "WHERE ref_count = 0 AND updated_at < :cutoff " +
+                        "ORDER BY updated_at " +
+                        "LIMIT :limit " +
+                        "FOR UPDATE SKIP LOCKED")
+            .setParameter("cutoff", cutoff)
+            .setParameter("limit", limit)
+            .getResultList();
+    }
+
+    public void deleteByHashes(List<String> hashes) {
+        delete("hash in ?1", hashes);
+    }
+}
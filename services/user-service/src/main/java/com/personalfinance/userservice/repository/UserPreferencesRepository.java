@@ -3,8 +3,12 @@ package com.personalfinance.userservice.repository;
 import com.personalfinance.userservice.entity.UserPreferences;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 @ApplicationScoped
 public class UserPreferencesRepository implements PanacheRepository<UserPreferences> {
@@ -13,7 +17,32 @@ public class UserPreferencesRepository implements PanacheRepository<UserPreferen
         return find("email", email).firstResultOptional();
     }
 
+    /**
+     * Load and lock the row for the rest of the transaction, for writes that release what it points at
+     */
+    public Optional<UserPreferences> findByEmailForUpdate(String email) {
+        return find("email", email).withLock(LockModeType.PESSIMISTIC_WRITE).firstResultOptional();
+    }
+
+    /**
+     * Load without a dirty-checking snapshot, for the read path
+     */
+    public Optional<UserPreferences> findByEmailReadOnly(String email) {
+        return find("email", email)
+            .withHint(HibernateHints.HINT_READ_ONLY, true)
+            .firstResultOptional();
+    }
+
     public boolean existsByEmail(String email) {
         return count("email", email) > 0;
     }
+
+    /**
+     * Avatar file names still in the legacy flat layout; content addresses never contain a dot
+     */
+    public Set<String> findLegacyAvatarPaths() {
+        return new HashSet<>(getEntityManager()
+            .createQuery("SELECT p.avatarPath FROM UserPreferences p WHERE p.avatarPath LIKE '%.%'", String.class)
+            .getResultList());
+    }
 }
@@ -8,6 +8,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
@@ -44,7 +45,6 @@ public class AvatarResource {
             return service.uploadAvatar(
                 email,
                 file.uploadedFile(),
-                file.fileName(),
                 file.contentType(),
                 file.size()
             );
@@ -55,14 +55,21 @@ public class AvatarResource {
 
     @GET
     @Produces({"image/png", "image/jpeg", "image/jpg", "image/gif"})
-    @Operation(summary = "Get avatar", description = "Retrieve the user's avatar image")
+    @Operation(summary = "Get avatar", description = "Retrieve the user's avatar image, optionally as a resized variant")
     @APIResponse(responseCode = "200", description = "Avatar image")
+    @APIResponse(responseCode = "206", description = "Requested byte range of the avatar image")
+    @APIResponse(responseCode = "304", description = "Avatar unchanged since the given ETag")
     @APIResponse(responseCode = "404", description = "Avatar not found")
-    public Response getAvatar() {
+    @APIResponse(responseCode = "416", description = "Requested range not satisfiable")
+    public Response getAvatar(@Parameter(description = "Requested edge length in pixels; the nearest larger variant is served")
+                              @QueryParam("size") Integer size,
+                              @HeaderParam("If-None-Match") String ifNoneMatch,
+                              @HeaderParam("Range") String range,
+                              @HeaderParam("If-Range") String ifRange) {
         String email = extractEmail();
 
         try {
-            return service.getAvatar(email);
+            return service.getAvatar(email, size, ifNoneMatch, range, ifRange);
         } catch (IOException e) {
             return Response.status(500).entity("Failed to read avatar").build();
         }
@@ -1,31 +1,58 @@
 package com.personalfinance.userservice.service;
 
+import com.personalfinance.invalidation.InvalidationBus;
+import com.personalfinance.userservice.entity.PreferenceSettings;
 import com.personalfinance.userservice.entity.UserPreferences;
+import com.personalfinance.userservice.repository.AvatarBlobRepository;
 import com.personalfinance.userservice.repository.UserPreferencesRepository;
+import com.personalfinance.userservice.storage.BlobBody;
+import com.personalfinance.userservice.storage.StoredBlob;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.PathPart;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.HashMap;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @ApplicationScoped
 public class AvatarService {
 
-    private static final String AVATAR_DIR = "/tmp/avatars";
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
+    // The URL is stable across uploads, so always revalidate; the ETag is the content hash, making that a cheap 304
+    private static final String CACHE_CONTROL = "private, no-cache";
 
     @Inject
     UserPreferencesRepository repository;
 
-    @Transactional
-    public Response uploadAvatar(String email, Path uploadedFile, String fileName, String contentType, long fileSize)
+    @Inject
+    AvatarThumbnailer thumbnailer;
+
+    @Inject
+    AvatarStore store;
+
+    @Inject
+    AvatarBlobRepository blobRepository;
+
+    @Inject
+    InvalidationBus invalidationBus;
+
+    /**
+     * Store an uploaded avatar and its variants and point the user at them.
+     * <p>
+     * Blobs are registered unreferenced, stored, and only then referenced in a short transaction, so no
+     * transaction or connection is held while they upload. A failure after the files land leaves them
+     * unreferenced for the sweeper.
+     */
+    public Response uploadAvatar(String email, Path uploadedFile, String contentType, long fileSize)
             throws IOException {
         if (fileSize > MAX_FILE_SIZE) {
             return Response.status(400).entity("File size exceeds 5MB limit").build();
@@ -35,67 +62,253 @@ public class AvatarService {
             return Response.status(400).entity("Only image files are allowed").build();
         }
 
-        UserPreferences prefs = repository.findByEmail(email)
-            .orElseGet(() -> {
-                UserPreferences newPrefs = new UserPreferences();
-                newPrefs.email = email;
-                newPrefs.preferences = new HashMap<>();
-                return newPrefs;
-            });
+        // Render variants before touching the database so no connection is held while decoding
+        List<AvatarThumbnailer.Variant> variants;
+        try {
+            variants = thumbnailer.render(uploadedFile);
+        } catch (IllegalArgumentException e) {
+            return Response.status(400).entity(e.getMessage()).build();
+        } catch (RejectedExecutionException e) {
+            return Response.status(503).entity("Too many avatar uploads in progress, try again shortly").build();
+        }
 
-        String newFileName = UUID.randomUUID() + getExtension(fileName);
-        Path uploadPath = Paths.get(AVATAR_DIR);
-        Files.createDirectories(uploadPath);
+        // Hash and stage every blob before touching the database as well
+        AvatarStore.StagedBlob original = store.stage(uploadedFile);
+        Map<String, AvatarStore.StagedBlob> stagedVariants = new LinkedHashMap<>();
+        try {
+            for (AvatarThumbnailer.Variant variant : variants) {
+                stagedVariants.put(String.valueOf(variant.size()), store.stage(variant::write));
+            }
 
-        Path filePath = uploadPath.resolve(newFileName);
-        Files.copy(uploadedFile, filePath, StandardCopyOption.REPLACE_EXISTING);
+            List<AvatarStore.StagedBlob> blobs = new ArrayList<>();
+            blobs.add(original);
+            blobs.addAll(stagedVariants.values());
+            // Committed before the files land, so a failure after that leaves them to the sweeper
+            QuarkusTransaction.requiringNew().run(() -> blobs.forEach(blob -> blobRepository.register(blob.hash())));
 
-        // Delete old avatar if exists
-        if (prefs.avatarPath != null) {
-            Files.deleteIfExists(Paths.get(AVATAR_DIR, prefs.avatarPath));
-        }
+            store.commitAll(blobs);
 
-        prefs.avatarPath = newFileName;
-        repository.persist(prefs);
+            Map<String, String> variantHashes = new LinkedHashMap<>();
+            stagedVariants.forEach((variantSize, staged) -> variantHashes.put(variantSize, staged.hash()));
+
+            QuarkusTransaction.requiringNew().run(() -> {
+                for (AvatarStore.StagedBlob blob : blobs) {
+                    if (!blobRepository.acquire(blob.hash())) {
+                        // Only if the upload outlasted the sweeper's grace period
+                        throw new IllegalStateException("Avatar blob " + blob.hash() + " was swept before it was referenced");
+                    }
+                }
+
+                // Locked so a concurrent upload or delete can't release the same previous avatar twice
+                UserPreferences prefs = repository.findByEmailForUpdate(email)
+                    .orElseGet(() -> {
+                        UserPreferences newPrefs = new UserPreferences();
+                        newPrefs.email = email;
+                        newPrefs.preferences = PreferenceSettings.DEFAULTS;
+                        return newPrefs;
+                    });
+
+                releaseAvatarBlobs(prefs);
+
+                prefs.avatarPath = original.hash();
+                prefs.avatarContentType = normalizeContentType(contentType);
+                prefs.avatarVariantContentType = variants.isEmpty() ? null : variants.get(0).contentType();
+                prefs.avatarVariants = variantHashes.isEmpty() ? null : variantHashes;
+                repository.persist(prefs);
+                invalidationBus.publish(UserPreferencesService.PREFERENCES_TOPIC, email);
+            });
+        } finally {
+            // No-op for committed blobs
+            store.discard(original);
+            for (AvatarStore.StagedBlob staged : stagedVariants.values()) {
+                store.discard(staged);
+            }
+        }
 
         return Response.ok().entity("{\"avatarUrl\":\"/api/v1/users/avatar\"}").build();
     }
 
-    public Response getAvatar(String email) throws IOException {
+    /**
+     * Serve the avatar with a strong ETag, honouring If-None-Match and a single byte range.
+     * Local blobs are returned as a {@link PathPart} so the body is written with sendfile; remote blobs are
+     * streamed or served from the in-memory cache.
+     * With a size, the smallest variant at least that large is served, or the original if none is.
+     */
+    public Response getAvatar(String email, Integer size, String ifNoneMatch, String range, String ifRange)
+            throws IOException {
+        if (size != null && size <= 0) {
+            return Response.status(400).entity("Size must be positive").build();
+        }
+
         UserPreferences prefs = repository.findByEmail(email).orElse(null);
 
         if (prefs == null || prefs.avatarPath == null) {
             return Response.status(404).entity("Avatar not found").build();
         }
 
-        Path filePath = Paths.get(AVATAR_DIR, prefs.avatarPath);
-        if (!Files.exists(filePath)) {
+        String servedAddress = prefs.avatarPath;
+        String contentType = prefs.avatarContentType != null ? prefs.avatarContentType : "image/png";
+        String variantAddress = size != null && prefs.avatarVariants != null ? nearestVariant(prefs.avatarVariants, size) : null;
+        if (variantAddress != null) {
+            servedAddress = variantAddress;
+            contentType = prefs.avatarVariantContentType;
+        }
+
+        // The address is a content hash (or a per-upload unique legacy name), so it identifies the bytes
+        // and a revalidation never needs to touch storage
+        String etag = "\"" + servedAddress + "\"";
+
+        if (matchesEtag(ifNoneMatch, etag)) {
+            return cacheHeaders(Response.notModified(), etag).build();
+        }
+
+        StoredBlob blob = store.open(servedAddress).orElse(null);
+        if (blob == null) {
             return Response.status(404).entity("Avatar file not found").build();
         }
+        long fileSize = blob.size();
 
-        byte[] imageData = Files.readAllBytes(filePath);
-        String contentType = Files.probeContentType(filePath);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, fileSize);
+            if (bounds == null) {
+                return Response.status(416)
+                    .header("Content-Range", "bytes */" + fileSize)
+                    .build();
+            }
+            if (bounds.length == 2) {
+                long count = bounds[1] - bounds[0] + 1;
+                return cacheHeaders(Response.status(206), etag)
+                    .entity(toEntity(blob.read(bounds[0], count)))
+                    .type(contentType)
+                    .header("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + fileSize)
+                    .build();
+            }
+        }
 
-        return Response.ok(imageData)
-            .type(contentType != null ? contentType : "image/png")
+        return cacheHeaders(Response.ok(toEntity(blob.read(0, fileSize))), etag)
+            .type(contentType)
             .build();
     }
 
     @Transactional
     public Response deleteAvatar(String email) throws IOException {
-        UserPreferences prefs = repository.findByEmail(email).orElse(null);
+        UserPreferences prefs = repository.findByEmailForUpdate(email).orElse(null);
 
         if (prefs == null || prefs.avatarPath == null) {
             return Response.status(404).entity("No avatar to delete").build();
         }
 
-        Files.deleteIfExists(Paths.get(AVATAR_DIR, prefs.avatarPath));
+        releaseAvatarBlobs(prefs);
         prefs.avatarPath = null;
+        prefs.avatarContentType = null;
+        prefs.avatarVariantContentType = null;
+        prefs.avatarVariants = null;
         repository.persist(prefs);
+        invalidationBus.publish(UserPreferencesService.PREFERENCES_TOPIC, email);
 
         return Response.noContent().build();
     }
 
+    private Object toEntity(BlobBody body) {
+        return switch (body) {
+            case BlobBody.FileRegion region -> new PathPart(region.file(), region.offset(), region.length());
+            case BlobBody.Bytes bytes -> bytes.bytes();
+            case BlobBody.Stream stream -> stream.in();
+        };
+    }
+
+    /**
+     * Drop this user's references; shared blobs stay until their last reference goes and the sweeper runs.
+     * Legacy flat files are not reference counted and are swept once no row points at them.
+     */
+    private void releaseAvatarBlobs(UserPreferences prefs) {
+        if (prefs.avatarPath != null && store.isContentAddress(prefs.avatarPath)) {
+            blobRepository.release(prefs.avatarPath);
+        }
+        if (prefs.avatarVariants != null) {
+            prefs.avatarVariants.values().forEach(blobRepository::release);
+        }
+    }
+
+    private String nearestVariant(Map<String, String> variants, int size) {
+        return variants.entrySet().stream()
+            .filter(entry -> Integer.parseInt(entry.getKey()) >= size)
+            .min(Comparator.comparingInt(entry -> Integer.parseInt(entry.getKey())))
+            .map(Map.Entry::getValue)
+            .orElse(null);
+    }
+
+    private Response.ResponseBuilder cacheHeaders(Response.ResponseBuilder builder, String etag) {
+        return builder
+            .header("ETag", etag)
+            .header("Cache-Control", CACHE_CONTROL)
+            .header("Accept-Ranges", "bytes");
+    }
+
+    /**
+     * Weak comparison as required for If-None-Match
+     */
+    private boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse a single "bytes=" range against the file size.
+     * Returns {start, end} for a satisfiable range, an empty array when the header should be ignored
+     * (malformed or multiple ranges, served as a full response) and null when it is unsatisfiable.
+     */
+    private long[] parseRange(String range, long fileSize) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, fileSize - suffix);
+                end = fileSize - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? fileSize - 1 : Math.min(Long.parseLong(last), fileSize - 1);
+                if (end < start) {
+                    return new long[0];
+                }
+            }
+            return start < fileSize ? new long[] {start, end} : null;
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private String normalizeContentType(String contentType) {
+        return contentType.equals("image/jpg") ? "image/jpeg" : contentType;
+    }
+
     private boolean isImageType(String contentType) {
         return contentType != null &&
             (contentType.equals("image/png") ||
@@ -103,9 +316,4 @@ public class AvatarService {
              contentType.equals("image/jpg") ||
              contentType.equals("image/gif"));
     }
-
-    private String getExtension(String fileName) {
-        int lastDot = fileName.lastIndexOf('.');
-        return lastDot > 0 ? fileName.substring(lastDot) : ".png";
-    }
 }
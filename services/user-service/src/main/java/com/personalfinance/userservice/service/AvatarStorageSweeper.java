@@ -0,0 +1,112 @@
+package com.personalfinance.userservice.service;
+
+import com.personalfinance.userservice.repository.AvatarBlobRepository;
+import com.personalfinance.userservice.repository.UserPreferencesRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes avatar files nothing points at any more: blobs whose reference count dropped to zero, temp files
+ * from interrupted uploads, and flat files from the legacy layout that the old delete path left behind.
+ * <p>
+ * Everything younger than the grace period is left alone so in-flight uploads are never swept.
+ */
+@ApplicationScoped
+public class AvatarStorageSweeper {
+
+    private static final Logger LOG = Logger.getLogger(AvatarStorageSweeper.class);
+
+    @Inject
+    AvatarStore store;
+
+    @Inject
+    AvatarBlobRepository blobRepository;
+
+    @Inject
+    UserPreferencesRepository preferencesRepository;
+
+    @ConfigProperty(name = "avatar.sweeper.grace-period")
+    Duration gracePeriod;
+
+    @ConfigProperty(name = "avatar.sweeper.batch-size")
+    int batchSize;
+
+    @Scheduled(identity = "avatar-storage-sweeper", every = "{avatar.sweeper.every}", delayed = "{avatar.sweeper.every}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void sweep() {
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        try {
+            int blobs = sweepUnreferencedBlobs(cutoff);
+            int temps = deleteAll(store.staleTempFiles(cutoff));
+            int legacy = sweepLegacyFiles(cutoff);
+            if (blobs + temps + legacy > 0) {
+                LOG.infof("Swept %d unreferenced avatar blobs, %d temp files and %d orphaned legacy files",
+                    blobs, temps, legacy);
+            }
+        } catch (IOException e) {
+            LOG.warn("Avatar storage sweep failed", e);
+        }
+    }
+
+    private int sweepUnreferencedBlobs(Instant cutoff) {
+        LocalDateTime cutoffTime = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+        int swept = 0;
+        int batch;
+        do {
+            // Files go before the rows are deleted: the row lock keeps uploads of the same content waiting
+            // until the file is gone, after which they re-create both
+            batch = QuarkusTransaction.requiringNew().call(() -> {
+                List<String> hashes = blobRepository.lockUnreferenced(cutoffTime, batchSize);
+                for (String hash : hashes) {
+                    store.delete(hash);
+                }
+                if (!hashes.isEmpty()) {
+                    blobRepository.deleteByHashes(hashes);
+                }
+                return hashes.size();
+            });
+            swept += batch;
+        } while (batch == batchSize);
+        return swept;
+    }
+
+    private int sweepLegacyFiles(Instant cutoff) throws IOException {
+        List<String> candidates = store.staleLegacyAddresses(cutoff);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = QuarkusTransaction.requiringNew().call(preferencesRepository::findLegacyAvatarPaths);
+        int deleted = 0;
+        for (String address : candidates) {
+            if (!referenced.contains(address)) {
+                store.delete(address);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private int deleteAll(List<Path> files) throws IOException {
+        int deleted = 0;
+        for (Path file : files) {
+            if (Files.deleteIfExists(file)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,177 @@
+package com.personalfinance.userservice.service;
+
+import com.personalfinance.userservice.storage.AvatarBlobCache;
+import com.personalfinance.userservice.storage.AvatarBlobStorage;
+import com.personalfinance.userservice.storage.StoredBlob;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed avatar blob store in front of the configured {@link AvatarBlobStorage} backend.
+ * <p>
+ * Blobs are named by the SHA-256 of their bytes. Writes are staged into a local temp file while hashing and then
+ * handed to the backend, which stores each address once (atomic rename on disk, a single or multipart upload on
+ * S3), so readers never see a partial blob and identical content is stored once. Reads go through a byte-bounded
+ * LRU for remote backends. Reference counting lives in {@code avatar_blobs}; this class only deals with bytes.
+ */
+@ApplicationScoped
+public class AvatarStore {
+
+    /**
+     * A blob written to a temp file but not yet handed to the backend
+     */
+    public record StagedBlob(String hash, Path tempFile, long size) {}
+
+    @FunctionalInterface
+    public interface Writer {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    @Inject
+    Instance<AvatarBlobStorage> backends;
+
+    @Inject
+    AvatarBlobCache cache;
+
+    @ConfigProperty(name = "avatar.storage.staging-dir")
+    Path stagingDir;
+
+    @ConfigProperty(name = "avatar.storage.put-timeout")
+    Duration putTimeout;
+
+    private AvatarBlobStorage backend;
+
+    @PostConstruct
+    void init() {
+        // Exactly one backend matches avatar.storage.backend
+        backend = backends.get();
+    }
+
+    public StagedBlob stage(Path source) throws IOException {
+        return stage(out -> {
+            try (InputStream in = Files.newInputStream(source)) {
+                in.transferTo(out);
+            }
+        });
+    }
+
+    /**
+     * Write a blob to a temp file, hashing it as it streams through
+     */
+    public StagedBlob stage(Writer writer) throws IOException {
+        Files.createDirectories(stagingDir);
+        Path tempFile = Files.createTempFile(stagingDir, "avatar-", ".part");
+
+        MessageDigest digest = sha256();
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tempFile), digest)) {
+            writer.writeTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return new StagedBlob(HexFormat.of().formatHex(digest.digest()), tempFile, Files.size(tempFile));
+    }
+
+    /**
+     * Store staged blobs under their content addresses, all in flight at once
+     */
+    public void commitAll(List<StagedBlob> staged) throws IOException {
+        CompletableFuture<?>[] puts = staged.stream()
+            .map(blob -> backend.put(blob.hash(), blob.tempFile()))
+            .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(puts).get(putTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException("Storing avatar blobs timed out", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Storing avatar blobs failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while storing avatar blobs");
+        }
+    }
+
+    /**
+     * Drop a staged temp file; a no-op when the backend moved it into place
+     */
+    public void discard(StagedBlob staged) throws IOException {
+        Files.deleteIfExists(staged.tempFile());
+    }
+
+    public Optional<StoredBlob> open(String address) throws IOException {
+        return cache.open(address, backend);
+    }
+
+    public boolean isContentAddress(String address) {
+        return AvatarBlobStorage.isContentAddress(address);
+    }
+
+    public void delete(String address) throws IOException {
+        backend.delete(address);
+        cache.invalidate(address);
+    }
+
+    /**
+     * Temp files older than the cutoff, left behind by uploads that crashed between staging and commit
+     */
+    public List<Path> staleTempFiles(Instant cutoff) throws IOException {
+        if (!Files.isDirectory(stagingDir)) {
+            return List.of();
+        }
+        FileTime cutoffTime = FileTime.from(cutoff);
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            return files
+                .filter(Files::isRegularFile)
+                .filter(file -> {
+                    try {
+                        return Files.getLastModifiedTime(file).compareTo(cutoffTime) < 0;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Addresses older than the cutoff from before content addressing
+     */
+    public List<String> staleLegacyAddresses(Instant cutoff) throws IOException {
+        return backend.staleLegacyAddresses(cutoff);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
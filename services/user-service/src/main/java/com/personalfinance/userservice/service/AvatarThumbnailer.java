@@ -0,0 +1,185 @@
+package com.personalfinance.userservice.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decodes an uploaded avatar once and renders square, re-encoded variants at the configured sizes.
+ * <p>
+ * Decoding is CPU and memory heavy, so it runs on a small bounded pool: concurrent uploads beyond the pool
+ * and queue are rejected instead of piling decoded bitmaps onto the heap.
+ */
+@ApplicationScoped
+public class AvatarThumbnailer {
+
+    // Reject decompression bombs before allocating the bitmap
+    private static final long MAX_PIXELS = 40_000_000L;
+
+    /**
+     * A rendered variant; images with transparency are kept as PNG, everything else becomes JPEG
+     */
+    public record Variant(int size, String format, String contentType, BufferedImage image) {
+
+        public void write(OutputStream out) throws IOException {
+            if (!ImageIO.write(image, format, out)) {
+                throw new IOException("No image writer for " + format);
+            }
+        }
+    }
+
+    @ConfigProperty(name = "avatar.thumbnail.sizes")
+    List<Integer> sizes;
+
+    @ConfigProperty(name = "avatar.thumbnail.timeout-millis")
+    long timeoutMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    AvatarThumbnailer(@ConfigProperty(name = "avatar.thumbnail.workers") int workers,
+                      @ConfigProperty(name = "avatar.thumbnail.queue-size") int queueSize) {
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+                Thread thread = new Thread(runnable, "avatar-thumbnailer");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<Integer> sizes() {
+        return sizes;
+    }
+
+    /**
+     * Render all variants of an uploaded image on the thumbnail pool
+     *
+     * @throws IllegalArgumentException if the file is not a decodable image or is too large
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public List<Variant> render(Path source) throws IOException {
+        Future<List<Variant>> future = executor.submit(() -> renderNow(source));
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("Thumbnail generation timed out", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException iae) {
+                throw iae;
+            }
+            if (e.getCause() instanceof UncheckedIOException uio) {
+                throw uio.getCause();
+            }
+            throw new IOException("Thumbnail generation failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating thumbnails", e);
+        }
+    }
+
+    private List<Variant> renderNow(Path source) {
+        BufferedImage original;
+        try {
+            original = decode(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        boolean alpha = original.getColorModel().hasAlpha();
+        BufferedImage square = cropToSquare(original);
+
+        List<Variant> variants = new ArrayList<>(sizes.size());
+        for (int size : sizes) {
+            BufferedImage scaled = scale(square, size, alpha);
+            variants.add(alpha
+                ? new Variant(size, "png", "image/png", scaled)
+                : new Variant(size, "jpg", "image/jpeg", scaled));
+        }
+        return variants;
+    }
+
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw new IllegalArgumentException("Image dimensions are too large");
+                }
+                // Animated GIFs keep only their first frame
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage cropToSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        return image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+    }
+
+    /**
+     * Downscale in halving steps so bilinear filtering does not skip source pixels; never upscales
+     */
+    private BufferedImage scale(BufferedImage square, int size, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        int target = Math.min(size, square.getWidth());
+
+        BufferedImage current = square;
+        int currentSize = square.getWidth();
+        do {
+            currentSize = Math.max(target, currentSize / 2);
+            BufferedImage next = new BufferedImage(currentSize, currentSize, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!alpha) {
+                    // JPEG has no alpha channel; flatten onto white
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, currentSize, currentSize);
+                }
+                graphics.drawImage(current, 0, 0, currentSize, currentSize, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentSize > target);
+
+        return current;
+    }
+}
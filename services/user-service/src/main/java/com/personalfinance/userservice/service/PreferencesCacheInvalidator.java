@@ -0,0 +1,35 @@
+package com.personalfinance.userservice.service;
+
+import com.personalfinance.invalidation.InvalidationMessage;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+/**
+ * Drops a user's cached preferences once a write to them (settings or avatar) has committed, on this replica or another
+ */
+@ApplicationScoped
+public class PreferencesCacheInvalidator {
+
+    public static final String PREFERENCES_CACHE = "user-preferences";
+
+    @Inject
+    @CacheName(PREFERENCES_CACHE)
+    Cache preferencesCache;
+
+    void onInvalidation(@Observes(during = TransactionPhase.AFTER_SUCCESS) InvalidationMessage message) {
+        if (!message.matches(UserPreferencesService.PREFERENCES_TOPIC)) {
+            return;
+        }
+
+        if (message.keys().isEmpty()) {
+            preferencesCache.invalidateAll().await().indefinitely();
+            return;
+        }
+
+        preferencesCache.invalidate(message.keys().get(0)).await().indefinitely();
+    }
+}
@@ -1,45 +1,55 @@
 package com.personalfinance.userservice.service;
 
+import com.personalfinance.invalidation.InvalidationBus;
 import com.personalfinance.userservice.dto.PreferencesRequest;
 import com.personalfinance.userservice.dto.PreferencesResponse;
+import com.personalfinance.userservice.entity.PreferenceSettings;
 import com.personalfinance.userservice.entity.UserPreferences;
 import com.personalfinance.userservice.repository.UserPreferencesRepository;
+import io.quarkus.cache.CacheResult;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 
-import java.util.HashMap;
-import java.util.Map;
-
 @ApplicationScoped
 public class UserPreferencesService {
 
+    public static final String PREFERENCES_TOPIC = "preferences";
+
     @Inject
     UserPreferencesRepository repository;
 
     @Inject
     EntityManager entityManager;
 
+    @Inject
+    InvalidationBus invalidationBus;
+
+    /**
+     * Read on every dashboard load and rarely written, so cached per user until a save commits
+     */
+    @CacheResult(cacheName = PreferencesCacheInvalidator.PREFERENCES_CACHE)
     public PreferencesResponse getPreferences(String email) {
-        return repository.findByEmail(email)
+        return repository.findByEmailReadOnly(email)
             .map(prefs -> toResponse(prefs, false))
             .orElseGet(() -> toResponse(createDefault(email), true));
     }
 
     @Transactional
     public PreferencesResponse savePreferences(String email, PreferencesRequest request) {
-        UserPreferences prefs = repository.findByEmail(email)
+        // Every column is written back, so lock against an avatar upload or delete in between
+        UserPreferences prefs = repository.findByEmailForUpdate(email)
             .orElseGet(() -> {
                 UserPreferences newPrefs = new UserPreferences();
                 newPrefs.email = email;
-                newPrefs.preferences = new HashMap<>();
                 return newPrefs;
             });
 
         updatePreferences(prefs, request);
         repository.persist(prefs);
         entityManager.flush();
+        invalidationBus.publish(PREFERENCES_TOPIC, email);
 
         return toResponse(prefs, false);
     }
@@ -52,33 +62,31 @@ public class UserPreferencesService {
     private UserPreferences createDefault(String email) {
         UserPreferences prefs = new UserPreferences();
         prefs.email = email;
-        prefs.preferences = new HashMap<>();
-        prefs.preferences.put("currency", "USD");
-        prefs.preferences.put("emergencyFundMonths", 3);
-        prefs.preferences.put("monthlySalary", 0.0);
+        prefs.preferences = PreferenceSettings.DEFAULTS;
         return prefs;
     }
 
     private void updatePreferences(UserPreferences prefs, PreferencesRequest request) {
-        // Create a new HashMap to ensure Hibernate detects the change for JSONB column
-        Map<String, Object> newPrefs = new HashMap<>(prefs.preferences);
-        newPrefs.put("currency", request.currency());
-        newPrefs.put("emergencyFundMonths", request.emergencyFundMonths());
-        newPrefs.put("monthlySalary", request.monthlySalary());
-        // Always update emergencyFundSaved, using 0.0 as default if null
-        newPrefs.put("emergencyFundSaved", request.emergencyFundSaved() != null ? request.emergencyFundSaved() : 0.0);
-        // Reassign to trigger Hibernate's dirty checking
-        prefs.preferences = newPrefs;
+        // A new record instance, so Hibernate's dirty checking sees the JSONB column change;
+        // keys the request can't carry are kept
+        prefs.preferences = new PreferenceSettings(
+            request.currency(),
+            request.emergencyFundMonths(),
+            request.monthlySalary(),
+            request.emergencyFundSaved(),
+            prefs.preferences != null ? prefs.preferences.extras() : null
+        );
     }
 
     private PreferencesResponse toResponse(UserPreferences prefs, boolean isFirstTime) {
+        PreferenceSettings settings = prefs.preferences != null ? prefs.preferences : PreferenceSettings.DEFAULTS;
         return new PreferencesResponse(
             prefs.id,
             prefs.email,
-            (String) prefs.preferences.getOrDefault("currency", "USD"),
-            (Integer) prefs.preferences.getOrDefault("emergencyFundMonths", 3),
-            ((Number) prefs.preferences.getOrDefault("monthlySalary", 0.0)).doubleValue(),
-            ((Number) prefs.preferences.getOrDefault("emergencyFundSaved", 0.0)).doubleValue(),
+            settings.currency(),
+            settings.emergencyFundMonths(),
+            settings.monthlySalary(),
+            settings.emergencyFundSaved(),
             prefs.avatarPath,
             prefs.createdAt,
             prefs.updatedAt,
@@ -0,0 +1,102 @@
+package com.personalfinance.userservice.storage;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through LRU of whole blobs in front of a remote backend, bounded by total bytes.
+ * <p>
+ * Blobs are immutable and content-addressed, so entries never go stale: a blob is only deleted once nothing has
+ * referenced it for the sweeper's grace period. Blobs larger than {@code max-entry-bytes} (typically originals)
+ * are streamed through uncached so the cache holds many small variants rather than a few large files.
+ */
+@ApplicationScoped
+public class AvatarBlobCache {
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    AvatarBlobCache(@ConfigProperty(name = "avatar.storage.cache.max-bytes") long maxBytes,
+                    @ConfigProperty(name = "avatar.storage.cache.max-entry-bytes") long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+    }
+
+    public Optional<StoredBlob> open(String address, AvatarBlobStorage backend) throws IOException {
+        byte[] cached = get(address);
+        if (cached != null) {
+            return Optional.of(inMemory(cached));
+        }
+
+        Optional<StoredBlob> blob = backend.open(address);
+        if (blob.isEmpty() || backend.zeroCopy() || blob.get().size() > maxEntryBytes) {
+            return blob;
+        }
+
+        byte[] bytes = readFully(blob.get());
+        put(address, bytes);
+        return Optional.of(inMemory(bytes));
+    }
+
+    public synchronized void invalidate(String address) {
+        byte[] removed = entries.remove(address);
+        if (removed != null) {
+            totalBytes -= removed.length;
+        }
+    }
+
+    private synchronized byte[] get(String address) {
+        return entries.get(address);
+    }
+
+    private synchronized void put(String address, byte[] bytes) {
+        byte[] previous = entries.put(address, bytes);
+        totalBytes += bytes.length - (previous != null ? previous.length : 0);
+
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    private byte[] readFully(StoredBlob blob) throws IOException {
+        BlobBody body = blob.read(0, blob.size());
+        return switch (body) {
+            case BlobBody.Bytes bytes -> bytes.bytes();
+            case BlobBody.Stream stream -> {
+                try (InputStream in = stream.in()) {
+                    yield in.readAllBytes();
+                }
+            }
+            case BlobBody.FileRegion region -> throw new IllegalStateException("File regions are served uncached");
+        };
+    }
+
+    private StoredBlob inMemory(byte[] bytes) {
+        return new StoredBlob() {
+            @Override
+            public long size() {
+                return bytes.length;
+            }
+
+            @Override
+            public BlobBody read(long offset, long length) {
+                if (offset == 0 && length == bytes.length) {
+                    return new BlobBody.Bytes(bytes);
+                }
+                return new BlobBody.Bytes(Arrays.copyOfRange(bytes, (int) offset, (int) (offset + length)));
+            }
+        };
+    }
+}
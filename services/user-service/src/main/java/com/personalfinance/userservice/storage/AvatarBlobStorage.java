@@ -0,0 +1,57 @@
+package com.personalfinance.userservice.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Backend holding avatar blobs, selected with {@code avatar.storage.backend}.
+ * <p>
+ * Blobs are immutable and addressed by the SHA-256 of their bytes, so a backend never overwrites one and
+ * storing an address twice is a no-op. Addresses that are not content hashes are legacy flat file names.
+ */
+public interface AvatarBlobStorage {
+
+    Pattern CONTENT_ADDRESS = Pattern.compile("[0-9a-f]{64}");
+
+    static boolean isContentAddress(String address) {
+        return CONTENT_ADDRESS.matcher(address).matches();
+    }
+
+    /**
+     * Key of an address in the two-level sharded layout ({@code ab/cd/abcd...})
+     */
+    static String shardedKey(String address) {
+        if (!isContentAddress(address)) {
+            return address;
+        }
+        return address.substring(0, 2) + "/" + address.substring(2, 4) + "/" + address;
+    }
+
+    /**
+     * Store a staged file under an address unless it is already present; the file may be moved
+     */
+    CompletableFuture<Void> put(String address, Path file);
+
+    Optional<StoredBlob> open(String address) throws IOException;
+
+    void delete(String address) throws IOException;
+
+    /**
+     * Whether reads are local file regions the HTTP layer sends with sendfile, making a heap cache pointless
+     */
+    default boolean zeroCopy() {
+        return false;
+    }
+
+    /**
+     * Addresses older than the cutoff left over from the flat layout used before content addressing
+     */
+    default List<String> staleLegacyAddresses(Instant cutoff) throws IOException {
+        return List.of();
+    }
+}
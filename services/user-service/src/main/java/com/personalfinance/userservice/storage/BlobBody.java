@@ -0,0 +1,19 @@
+package com.personalfinance.userservice.storage;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Bytes of a blob in the cheapest form the backend can hand out
+ */
+public sealed interface BlobBody {
+
+    record FileRegion(Path file, long offset, long length) implements BlobBody {}
+
+    record Bytes(byte[] bytes) implements BlobBody {}
+
+    /**
+     * Open stream the caller must consume and close
+     */
+    record Stream(InputStream in, long length) implements BlobBody {}
+}
@@ -0,0 +1,129 @@
+package com.personalfinance.userservice.storage;
+
+import io.quarkus.arc.lookup.LookupIfProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Blobs sharded under {@code avatar.storage.dir} on local disk; only suitable for a single replica or a shared volume
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "avatar.storage.backend", stringValue = "local", lookupIfMissing = true)
+public class LocalAvatarBlobStorage implements AvatarBlobStorage {
+
+    private final Path root;
+
+    LocalAvatarBlobStorage(@ConfigProperty(name = "avatar.storage.dir") String root) {
+        this.root = Paths.get(root);
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String address, Path file) {
+        try {
+            Path target = resolve(address);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                moveAtomically(file, target);
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public Optional<StoredBlob> open(String address) throws IOException {
+        Path file = resolve(address);
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredBlob() {
+            @Override
+            public long size() {
+                return size;
+            }
+
+            @Override
+            public BlobBody read(long offset, long length) {
+                return new BlobBody.FileRegion(file, offset, length);
+            }
+        });
+    }
+
+    @Override
+    public void delete(String address) throws IOException {
+        Files.deleteIfExists(resolve(address));
+    }
+
+    @Override
+    public boolean zeroCopy() {
+        return true;
+    }
+
+    @Override
+    public List<String> staleLegacyAddresses(Instant cutoff) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        FileTime cutoffTime = FileTime.from(cutoff);
+        // Shards are directories, so regular files directly under the root are from the flat layout
+        try (Stream<Path> files = Files.list(root)) {
+            return files
+                .filter(Files::isRegularFile)
+                .filter(file -> {
+                    try {
+                        return Files.getLastModifiedTime(file).compareTo(cutoffTime) < 0;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .map(file -> file.getFileName().toString())
+                .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Path resolve(String address) {
+        return root.resolve(AvatarBlobStorage.shardedKey(address));
+    }
+
+    /**
+     * Rename into place; when staging is on another filesystem, copy next to the target first so the final
+     * step is still an atomic rename and readers never see a partial blob
+     */
+    private void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Lost a race with an identical upload
+        } catch (AtomicMoveNotSupportedException e) {
+            Path sibling = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+            try {
+                Files.copy(source, sibling, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(sibling, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(sibling);
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.personalfinance.userservice.storage;
+
+import io.quarkus.arc.lookup.LookupIfProperty;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Blobs in an S3-compatible bucket (AWS S3, MinIO, ...), shared by all replicas.
+ * <p>
+ * Uses the JDK's async HTTP client with SigV4 signing. Uploads are skipped when the content address already
+ * exists; files above {@code part-size} go up as a multipart upload with at most {@code max-concurrent-parts}
+ * parts in flight, aborted on failure. Reads are ranged GETs streamed to the caller without buffering.
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "avatar.storage.backend", stringValue = "s3")
+public class S3AvatarBlobStorage implements AvatarBlobStorage {
+
+    // S3 rejects multipart parts smaller than this, except the last one
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    @ConfigProperty(name = "avatar.storage.s3.endpoint")
+    URI endpoint;
+
+    @ConfigProperty(name = "avatar.storage.s3.region")
+    String region;
+
+    @ConfigProperty(name = "avatar.storage.s3.bucket")
+    String bucket;
+
+    @ConfigProperty(name = "avatar.storage.s3.path-style")
+    boolean pathStyle;
+
+    @ConfigProperty(name = "avatar.storage.s3.access-key")
+    String accessKey;
+
+    @ConfigProperty(name = "avatar.storage.s3.secret-key")
+    String secretKey;
+
+    @ConfigProperty(name = "avatar.storage.s3.part-size")
+    long partSize;
+
+    @ConfigProperty(name = "avatar.storage.s3.max-concurrent-parts")
+    int maxConcurrentParts;
+
+    @ConfigProperty(name = "avatar.storage.s3.request-timeout")
+    Duration requestTimeout;
+
+    private HttpClient client;
+    private S3RequestSigner signer;
+
+    @PostConstruct
+    void init() {
+        partSize = Math.max(partSize, MIN_PART_SIZE);
+        maxConcurrentParts = Math.max(maxConcurrentParts, 1);
+        signer = new S3RequestSigner(accessKey, secretKey, region);
+        client = HttpClient.newBuilder()
+            .connectTimeout(requestTimeout)
+            .build();
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String address, Path file) {
+        String key = AvatarBlobStorage.shardedKey(address);
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return send(request("HEAD", key, null, S3RequestSigner.EMPTY_PAYLOAD), HttpResponse.BodyHandlers.discarding())
+            .thenCompose(head -> {
+                if (head.statusCode() == 200) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                if (head.statusCode() != 404) {
+                    return CompletableFuture.failedFuture(failure("HEAD", key, head.statusCode(), ""));
+                }
+                return size > partSize ? putMultipart(key, file, size) : putSingle(key, file, address);
+            });
+    }
+
+    @Override
+    public Optional<StoredBlob> open(String address) throws IOException {
+        String key = AvatarBlobStorage.shardedKey(address);
+        HttpResponse<Void> head = sendSync(request("HEAD", key, null, S3RequestSigner.EMPTY_PAYLOAD).build(),
+            HttpResponse.BodyHandlers.discarding());
+        if (head.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (head.statusCode() != 200) {
+            throw failure("HEAD", key, head.statusCode(), "");
+        }
+        long size = head.headers().firstValueAsLong("Content-Length").orElse(0L);
+
+        return Optional.of(new StoredBlob() {
+            @Override
+            public long size() {
+                return size;
+            }
+
+            @Override
+            public BlobBody read(long offset, long length) throws IOException {
+                HttpRequest.Builder get = request("GET", key, null, S3RequestSigner.EMPTY_PAYLOAD);
+                if (offset != 0 || length != size) {
+                    get.header("Range", "bytes=" + offset + "-" + (offset + length - 1));
+                }
+                HttpResponse<InputStream> response = sendSync(get.build(), HttpResponse.BodyHandlers.ofInputStream());
+                if (response.statusCode() != 200 && response.statusCode() != 206) {
+                    String error = readError(response.body());
+                    throw failure("GET", key, response.statusCode(), error);
+                }
+                return new BlobBody.Stream(response.body(), length);
+            }
+        });
+    }
+
+    @Override
+    public void delete(String address) throws IOException {
+        String key = AvatarBlobStorage.shardedKey(address);
+        HttpResponse<String> response = sendSync(request("DELETE", key, null, S3RequestSigner.EMPTY_PAYLOAD).build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 204 && response.statusCode() != 200 && response.statusCode() != 404) {
+            throw failure("DELETE", key, response.statusCode(), response.body());
+        }
+    }
+
+    private CompletableFuture<Void> putSingle(String key, Path file, String address) {
+        HttpRequest.BodyPublisher body;
+        try {
+            body = HttpRequest.BodyPublishers.ofFile(file);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // The content address is the SHA-256 of the payload, so it doubles as the signed payload hash
+        String payloadHash = AvatarBlobStorage.isContentAddress(address) ? address : S3RequestSigner.UNSIGNED_PAYLOAD;
+        return send(request("PUT", key, null, payloadHash).PUT(body), HttpResponse.BodyHandlers.ofString())
+            .thenAccept(response -> expectOk("PUT", key, response));
+    }
+
+    private CompletableFuture<Void> putMultipart(String key, Path file, long size) {
+        return send(request("POST", key, "uploads", S3RequestSigner.EMPTY_PAYLOAD)
+                .POST(HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.ofString())
+            .thenCompose(initiated -> {
+                expectOk("POST", key, initiated);
+                String uploadId = S3Xml.text(S3Xml.parse(initiated.body()), "UploadId")
+                    .filter(id -> !id.isEmpty())
+                    .orElseThrow(() -> failure("POST", key, initiated.statusCode(), "missing UploadId"));
+                String uploadQuery = "uploadId=" + S3RequestSigner.encode(uploadId, false);
+
+                return uploadParts(key, uploadQuery, file, size)
+                    .thenCompose(etags -> completeMultipart(key, uploadQuery, etags))
+                    // Abort so the bucket doesn't keep billing for orphaned parts, then surface the original failure
+                    .exceptionallyCompose(e -> abortMultipart(key, uploadQuery)
+                        .handle((aborted, abortFailure) -> null)
+                        .thenCompose(ignored -> CompletableFuture.<Void>failedFuture(e)));
+            });
+    }
+
+    /**
+     * Upload every part, at most {@code maxConcurrentParts} at a time
+     *
+     * @return the part ETags in part order
+     */
+    private CompletableFuture<List<String>> uploadParts(String key, String uploadQuery, Path file, long size) {
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        String[] etags = new String[partCount];
+        AtomicInteger nextPart = new AtomicInteger();
+
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(maxConcurrentParts, partCount)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = uploadRemainingParts(key, uploadQuery, file, size, etags, nextPart);
+        }
+        return CompletableFuture.allOf(workers).thenApply(ignored -> List.of(etags));
+    }
+
+    /**
+     * Upload the next part not yet taken, then the next, until none are left
+     */
+    private CompletableFuture<Void> uploadRemainingParts(String key, String uploadQuery, Path file, long size,
+                                                         String[] etags, AtomicInteger nextPart) {
+        int index = nextPart.getAndIncrement();
+        if (index >= etags.length) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long offset = index * partSize;
+        return uploadPart(key, uploadQuery, index + 1, file, offset, Math.min(partSize, size - offset))
+            .thenCompose(etag -> {
+                etags[index] = etag;
+                return uploadRemainingParts(key, uploadQuery, file, size, etags, nextPart);
+            });
+    }
+
+    private CompletableFuture<String> uploadPart(String key, String uploadQuery, int partNumber,
+                                                 Path file, long offset, long length) {
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+            HttpRequest.BodyPublishers.ofInputStream(() -> openRegion(file, offset, length)), length);
+        return send(request("PUT", key, "partNumber=" + partNumber + "&" + uploadQuery, S3RequestSigner.UNSIGNED_PAYLOAD)
+                .PUT(body), HttpResponse.BodyHandlers.ofString())
+            .thenApply(response -> {
+                expectOk("PUT", key, response);
+                return response.headers().firstValue("ETag")
+                    .orElseThrow(() -> failure("PUT", key, response.statusCode(), "missing part ETag"));
+            });
+    }
+
+    private CompletableFuture<Void> completeMultipart(String key, String uploadQuery, List<String> etags) {
+        StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+        for (int i = 0; i < etags.size(); i++) {
+            xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                .append(S3Xml.escape(etags.get(i))).append("</ETag></Part>");
+        }
+        byte[] body = xml.append("</CompleteMultipartUpload>").toString().getBytes(StandardCharsets.UTF_8);
+
+        return send(request("POST", key, uploadQuery, S3RequestSigner.sha256Hex(body))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body)), HttpResponse.BodyHandlers.ofString())
+            .thenAccept(response -> {
+                // Completion can fail with a 200 whose body is an error document
+                if (response.statusCode() != 200 || S3Xml.isError(S3Xml.parse(response.body()))) {
+                    throw failure("POST", key, response.statusCode(), response.body());
+                }
+            });
+    }
+
+    private CompletableFuture<Void> abortMultipart(String key, String uploadQuery) {
+        return send(request("DELETE", key, uploadQuery, S3RequestSigner.EMPTY_PAYLOAD), HttpResponse.BodyHandlers.discarding())
+            .thenAccept(response -> { });
+    }
+
+    private HttpRequest.Builder request(String method, String key, String query, String payloadHash) {
+        String encodedKey = S3RequestSigner.encode(key, true);
+        String base = endpoint.toString().replaceAll("/+$", "");
+        URI uri;
+        if (pathStyle) {
+            uri = URI.create(base + "/" + bucket + "/" + encodedKey + (query != null ? "?" + query : ""));
+        } else {
+            uri = URI.create(endpoint.getScheme() + "://" + bucket + "." + endpoint.getRawAuthority() + "/" + encodedKey
+                + (query != null ? "?" + query : ""));
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+            .timeout(requestTimeout)
+            .method(method, HttpRequest.BodyPublishers.noBody());
+        return signer.sign(builder, method, uri, payloadHash);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) {
+        return client.sendAsync(request.build(), handler);
+    }
+
+    private <T> HttpResponse<T> sendSync(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return client.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted calling " + request.uri());
+        }
+    }
+
+    private void expectOk(String method, String key, HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw failure(method, key, response.statusCode(), response.body());
+        }
+    }
+
+    private S3StorageException failure(String method, String key, int status, String body) {
+        String detail = S3Xml.describe(body);
+        return new S3StorageException(method + " " + bucket + "/" + key + " failed with status " + status
+            + (detail == null || detail.isEmpty() ? "" : ": " + detail));
+    }
+
+    private static String readError(InputStream body) throws IOException {
+        try (InputStream in = body) {
+            return new String(in.readNBytes(1024), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static InputStream openRegion(Path file, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ).position(offset);
+            return new FilterInputStream(Channels.newInputStream(channel)) {
+                private long remaining = length;
+
+                @Override
+                public int read() throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int b = super.read();
+                    if (b >= 0) {
+                        remaining--;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int off, int len) throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int read = super.read(buffer, off, (int) Math.min(len, remaining));
+                    if (read > 0) {
+                        remaining -= read;
+                    }
+                    return read;
+                }
+            };
+        } catch (IOException e) {
+            throw new S3StorageException("Failed to open " + file + " for upload", e);
+        }
+    }
+}
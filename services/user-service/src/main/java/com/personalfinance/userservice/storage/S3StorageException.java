@@ -0,0 +1,15 @@
+package com.personalfinance.userservice.storage;
+
+/**
+ * An S3 request that completed with an unexpected status
+ */
+public class S3StorageException extends RuntimeException {
+
+    public S3StorageException(String message) {
+        super(message);
+    }
+
+    public S3StorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,69 @@
+package com.personalfinance.userservice.storage;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Optional;
+
+/**
+ * The XML documents S3 exchanges, read with a parser that refuses DTDs and external entities
+ */
+final class S3Xml {
+
+    private S3Xml() {
+    }
+
+    static Document parse(String xml) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setExpandEntityReferences(false);
+            return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new S3StorageException("Malformed S3 response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Text of the first element with the local name, in any namespace
+     */
+    static Optional<String> text(Document document, String localName) {
+        NodeList elements = document.getElementsByTagNameNS("*", localName);
+        return elements.getLength() > 0 ? Optional.of(elements.item(0).getTextContent().trim()) : Optional.empty();
+    }
+
+    static boolean isError(Document document) {
+        return "Error".equals(document.getDocumentElement().getLocalName());
+    }
+
+    /**
+     * "Code: Message" of an S3 error document, or the body itself when it isn't one
+     */
+    static String describe(String body) {
+        if (body == null || !body.stripLeading().startsWith("<")) {
+            return body;
+        }
+        try {
+            Document document = parse(body);
+            if (!isError(document)) {
+                return body;
+            }
+            return text(document, "Code").orElse("Error") + text(document, "Message").map(message -> ": " + message).orElse("");
+        } catch (S3StorageException e) {
+            return body;
+        }
+    }
+
+    static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
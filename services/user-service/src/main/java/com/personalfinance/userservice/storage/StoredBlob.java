@@ -0,0 +1,13 @@
+package com.personalfinance.userservice.storage;
+
+import java.io.IOException;
+
+/**
+ * An existing blob whose size is known; reading it does not buffer unless the backend is already in memory
+ */
+public interface StoredBlob {
+
+    long size();
+
+    BlobBody read(long offset, long length) throws IOException;
+}
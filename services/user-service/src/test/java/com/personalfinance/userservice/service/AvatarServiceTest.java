@@ -0,0 +1,254 @@
+package com.personalfinance.userservice.service;
+
+import com.personalfinance.userservice.TestTokens;
+import com.personalfinance.userservice.entity.AvatarBlob;
+import com.personalfinance.userservice.repository.AvatarBlobRepository;
+import com.personalfinance.userservice.repository.UserPreferencesRepository;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class AvatarServiceTest {
+
+    @Inject
+    AvatarService avatarService;
+
+    @Inject
+    AvatarStore store;
+
+    @Inject
+    AvatarBlobRepository blobRepository;
+
+    @Inject
+    UserPreferencesRepository repository;
+
+    private Path image;
+
+    @BeforeEach
+    void createImage() throws IOException {
+        image = randomImage();
+    }
+
+    @AfterEach
+    void deleteImage() throws IOException {
+        Files.deleteIfExists(image);
+    }
+
+    @Test
+    void uploadReferencesEveryBlob() throws Exception {
+        String email = email();
+
+        Response response = upload(email);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1, refCount(sha256(image)));
+        assertTrue(store.open(sha256(image)).isPresent());
+    }
+
+    @Test
+    void blobsAreStoredOutsideAnyTransaction() throws Exception {
+        String email = email();
+        AvatarStore real = ClientProxy.unwrap(store);
+        boolean[] transactionActive = new boolean[1];
+        QuarkusMock.installMockForType(new AvatarStore() {
+            @Override
+            public StagedBlob stage(Writer writer) throws IOException {
+                return real.stage(writer);
+            }
+
+            @Override
+            public void commitAll(List<StagedBlob> staged) throws IOException {
+                transactionActive[0] = QuarkusTransaction.isActive();
+                real.commitAll(staged);
+            }
+
+            @Override
+            public void discard(StagedBlob staged) throws IOException {
+                real.discard(staged);
+            }
+
+            @Override
+            public boolean isContentAddress(String address) {
+                return real.isContentAddress(address);
+            }
+        }, AvatarStore.class);
+
+        assertEquals(200, upload(email).getStatus());
+
+        assertFalse(transactionActive[0]);
+        assertEquals(1, refCount(sha256(image)));
+    }
+
+    @Test
+    void replacingAnAvatarReleasesThePreviousBlobs() throws Exception {
+        String email = email();
+        upload(email);
+        String previous = sha256(image);
+
+        deleteImage();
+        createImage();
+        upload(email);
+
+        assertEquals(0, refCount(previous));
+        assertEquals(1, refCount(sha256(image)));
+    }
+
+    @Test
+    void uploadRolledBackAfterTheFilesLandLeavesThemToTheSweeper() throws Exception {
+        String email = email();
+        AvatarStore real = ClientProxy.unwrap(store);
+        AvatarStore failing = new AvatarStore() {
+            @Override
+            public StagedBlob stage(Writer writer) throws IOException {
+                return real.stage(writer);
+            }
+
+            @Override
+            public void commitAll(List<StagedBlob> staged) throws IOException {
+                real.commitAll(staged);
+                throw new IllegalStateException("Failed after storing the blobs");
+            }
+
+            @Override
+            public void discard(StagedBlob staged) throws IOException {
+                real.discard(staged);
+            }
+        };
+        QuarkusMock.installMockForType(failing, AvatarStore.class);
+
+        assertThrows(IllegalStateException.class, () -> upload(email));
+
+        String hash = sha256(image);
+        assertTrue(real.open(hash).isPresent());
+        assertEquals(0, refCount(hash));
+        List<String> sweepable = QuarkusTransaction.requiringNew().call(() ->
+            blobRepository.lockUnreferenced(LocalDateTime.now().plusMinutes(1), Integer.MAX_VALUE));
+        assertTrue(sweepable.contains(hash));
+    }
+
+    @Test
+    void concurrentUploadsReleaseThePreviousAvatarOnce() throws Exception {
+        String email = email();
+        upload(email);
+        String previous = sha256(image);
+
+        // Both uploads store their blobs, then reference them at the same moment
+        AvatarStore real = ClientProxy.unwrap(store);
+        CyclicBarrier bothStored = new CyclicBarrier(2);
+        QuarkusMock.installMockForType(new AvatarStore() {
+            @Override
+            public StagedBlob stage(Writer writer) throws IOException {
+                return real.stage(writer);
+            }
+
+            @Override
+            public void commitAll(List<StagedBlob> staged) throws IOException {
+                real.commitAll(staged);
+                try {
+                    bothStored.await(30, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public void discard(StagedBlob staged) throws IOException {
+                real.discard(staged);
+            }
+
+            @Override
+            public boolean isContentAddress(String address) {
+                return real.isContentAddress(address);
+            }
+        }, AvatarStore.class);
+
+        Path first = randomImage();
+        Path second = randomImage();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Response> firstUpload = executor.submit(() -> upload(email, first));
+            Future<Response> secondUpload = executor.submit(() -> upload(email, second));
+            assertEquals(200, firstUpload.get(60, TimeUnit.SECONDS).getStatus());
+            assertEquals(200, secondUpload.get(60, TimeUnit.SECONDS).getStatus());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The winner is referenced once; the blobs it replaced, including the loser's, are not referenced at all
+        String current = QuarkusTransaction.requiringNew().call(() -> repository.findByEmail(email).orElseThrow().avatarPath);
+        String replaced = current.equals(sha256(first)) ? sha256(second) : sha256(first);
+        assertEquals(1, refCount(current));
+        assertEquals(0, refCount(replaced));
+        assertEquals(0, refCount(previous));
+
+        Files.deleteIfExists(first);
+        Files.deleteIfExists(second);
+    }
+
+    private Response upload(String email) throws IOException {
+        return upload(email, image);
+    }
+
+    private Response upload(String email, Path file) throws IOException {
+        return avatarService.uploadAvatar(email, file, "image/png", Files.size(file));
+    }
+
+    private static Path randomImage() throws IOException {
+        // Random pixels, so every upload stores content no other upload shares
+        BufferedImage pixels = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < pixels.getWidth(); x++) {
+            for (int y = 0; y < pixels.getHeight(); y++) {
+                pixels.setRGB(x, y, ThreadLocalRandom.current().nextInt());
+            }
+        }
+        Path file = Files.createTempFile("avatar-test-", ".png");
+        ImageIO.write(pixels, "png", file.toFile());
+        return file;
+    }
+
+    private int refCount(String hash) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            AvatarBlob blob = blobRepository.findById(hash);
+            return blob != null ? blob.refCount : -1;
+        });
+    }
+
+    private static String email() {
+        return "avatar-" + UUID.randomUUID() + "@example.com";
+    }
+
+    private static String sha256(Path file) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.personalfinance.userservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personalfinance.userservice.TestTokens;
+import com.personalfinance.userservice.dto.PreferencesRequest;
+import com.personalfinance.userservice.dto.PreferencesResponse;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(TestTokens.class)
+class UserPreferencesServiceTest {
+
+    @Inject
+    UserPreferencesService preferencesService;
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Test
+    void savingKeepsKeysThisVersionDoesNotKnow() throws Exception {
+        String email = "preferences-" + UUID.randomUUID() + "@example.com";
+        QuarkusTransaction.requiringNew().run(() -> entityManager
+            .createNativeQuery("INSERT INTO user_schema.user_preferences (id, email, preferences, created_at, updated_at) " +
+                "VALUES (?1, ?2, CAST(?3 AS jsonb), NOW(), NOW())")
+            .setParameter(1, UUID.randomUUID())
+            .setParameter(2, email)
+            .setParameter(3, "{\"currency\": \"EUR\", \"theme\": \"dark\", \"dismissedTips\": [1, 2], \"legacy\": null}")
+            .executeUpdate());
+
+        PreferencesResponse saved = preferencesService.savePreferences(email,
+            new PreferencesRequest("GBP", 6, 4000.0, 1000.0));
+
+        assertEquals("GBP", saved.currency());
+        JsonNode stored = objectMapper.readTree(QuarkusTransaction.requiringNew().call(() -> (String) entityManager
+            .createNativeQuery("SELECT CAST(preferences AS TEXT) FROM user_schema.user_preferences WHERE email = ?1")
+            .setParameter(1, email)
+            .getSingleResult()));
+        assertEquals("GBP", stored.get("currency").asText());
+        assertEquals(6, stored.get("emergencyFundMonths").asInt());
+        assertEquals("dark", stored.get("theme").asText());
+        assertEquals(2, stored.get("dismissedTips").size());
+        assertTrue(stored.has("legacy") && stored.get("legacy").isNull());
+        assertFalse(stored.has("extras"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.personalfinance.userservice.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FakeS3AvatarBlobStorageTest extends S3AvatarBlobStorageContract {
+
+    private static final int MAX_CONCURRENT_PARTS = 2;
+
+    private FakeS3Server server;
+    private S3AvatarBlobStorage storage;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new FakeS3Server(BUCKET);
+        storage = storage(server.endpoint(), "access", "secret", MAX_CONCURRENT_PARTS);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Override
+    S3AvatarBlobStorage storage() {
+        return storage;
+    }
+
+    @Test
+    void partsUploadAtMostMaxConcurrentPartsAtATime() throws Exception {
+        server.partDelayMillis = 200;
+        byte[] bytes = randomBytes(5 * PART_SIZE + 1);
+
+        storage.put(sha256(bytes), file(bytes)).get(60, TimeUnit.SECONDS);
+
+        assertEquals(MAX_CONCURRENT_PARTS, server.maxPartsInFlight());
+        assertEquals(6, server.requests.stream().filter(request -> request.contains("partNumber")).count());
+    }
+
+    @Test
+    void errorDocumentOnCompletionFailsAndAbortsTheUpload() throws Exception {
+        server.failCompletion = true;
+        byte[] bytes = randomBytes(PART_SIZE + 1);
+        String address = sha256(bytes);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+            () -> storage.put(address, file(bytes)).get(30, TimeUnit.SECONDS));
+
+        S3StorageException cause = assertInstanceOf(S3StorageException.class, failure.getCause());
+        assertTrue(cause.getMessage().endsWith(": InternalError: We encountered an internal error. Please try again."),
+            cause.getMessage());
+        assertEquals(1, server.abortedUploads.size());
+        assertFalse(server.objects.containsKey(AvatarBlobStorage.shardedKey(address)));
+    }
+
+    @Test
+    void initiationWithoutUploadIdFails() throws Exception {
+        server.omitUploadId = true;
+        byte[] bytes = randomBytes(PART_SIZE + 1);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+            () -> storage.put(sha256(bytes), file(bytes)).get(30, TimeUnit.SECONDS));
+
+        assertTrue(failure.getCause().getMessage().endsWith("missing UploadId"), failure.getCause().getMessage());
+        assertTrue(server.requests.stream().noneMatch(request -> request.contains("partNumber")));
+    }
+
+    @Test
+    void failuresCarryTheErrorCodeAndMessage() throws Exception {
+        byte[] bytes = randomBytes(1024);
+        String address = sha256(bytes);
+        server.deniedKey = AvatarBlobStorage.shardedKey(address);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+            () -> storage.put(address, file(bytes)).get(30, TimeUnit.SECONDS));
+
+        assertEquals("HEAD avatars/" + server.deniedKey + " failed with status 403", failure.getCause().getMessage());
+
+        server.objects.put(server.deniedKey, bytes);
+        server.deniedKey = null;
+        StoredBlob blob = storage.open(address).orElseThrow();
+        server.deniedKey = AvatarBlobStorage.shardedKey(address);
+        S3StorageException denied = assertThrows(S3StorageException.class, () -> blob.read(0, bytes.length));
+        assertEquals("GET avatars/" + server.deniedKey + " failed with status 403: AccessDenied: Access Denied",
+            denied.getMessage());
+    }
+
+    @Test
+    void existingBlobIsNotUploadedAgain() throws Exception {
+        byte[] bytes = randomBytes(1024);
+        String address = sha256(bytes);
+        storage.put(address, file(bytes)).get(30, TimeUnit.SECONDS);
+        server.requests.clear();
+
+        storage.put(address, file(bytes)).get(30, TimeUnit.SECONDS);
+
+        assertEquals(1, server.requests.size());
+        assertTrue(server.requests.getFirst().startsWith("HEAD "));
+    }
+}
@@ -0,0 +1,232 @@
+package com.personalfinance.userservice.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the parts of the S3 API the avatar storage uses, with path-style addressing.
+ * Signatures are not checked. Failures and slow parts can be switched on to exercise the client's handling.
+ */
+final class FakeS3Server implements AutoCloseable {
+
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+    final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    final List<String> requests = new CopyOnWriteArrayList<>();
+    final List<String> abortedUploads = new CopyOnWriteArrayList<>();
+
+    /**
+     * Answer completion with a 200 whose body is an error document, as S3 may
+     */
+    volatile boolean failCompletion;
+
+    /**
+     * Answer initiation without an UploadId
+     */
+    volatile boolean omitUploadId;
+
+    /**
+     * Answer every request for this key with 403 and an error document
+     */
+    volatile String deniedKey;
+
+    volatile long partDelayMillis;
+
+    private final String bucket;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger partsInFlight = new AtomicInteger();
+    private final AtomicInteger maxPartsInFlight = new AtomicInteger();
+
+    FakeS3Server(String bucket) throws IOException {
+        this.bucket = bucket;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    URI endpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    int maxPartsInFlight() {
+        return maxPartsInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String prefix = "/" + bucket + "/";
+            String path = exchange.getRequestURI().getPath();
+            if (!path.startsWith(prefix)) {
+                respond(exchange, 404, error("NoSuchBucket", "The specified bucket does not exist"));
+                return;
+            }
+            String key = path.substring(prefix.length());
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            requests.add(method + " " + key + (query.isEmpty() ? "" : " " + new TreeMap<>(query).keySet()));
+
+            if (key.equals(deniedKey)) {
+                respond(exchange, 403, error("AccessDenied", "Access Denied"));
+            } else if (method.equals("POST") && query.containsKey("uploads")) {
+                String uploadId = UUID.randomUUID().toString();
+                uploads.put(uploadId, new ConcurrentHashMap<>());
+                respond(exchange, 200, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                    "<InitiateMultipartUploadResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">" +
+                    "<Bucket>" + bucket + "</Bucket><Key>" + key + "</Key>" +
+                    (omitUploadId ? "" : "<UploadId>" + uploadId + "</UploadId>") +
+                    "</InitiateMultipartUploadResult>");
+            } else if (method.equals("PUT") && query.containsKey("partNumber")) {
+                uploadPart(exchange, query, body);
+            } else if (method.equals("POST") && query.containsKey("uploadId")) {
+                completeUpload(exchange, key, query.get("uploadId"), new String(body, StandardCharsets.UTF_8));
+            } else if (method.equals("DELETE") && query.containsKey("uploadId")) {
+                uploads.remove(query.get("uploadId"));
+                abortedUploads.add(query.get("uploadId"));
+                exchange.sendResponseHeaders(204, -1);
+            } else if (method.equals("PUT")) {
+                objects.put(key, body);
+                exchange.getResponseHeaders().set("ETag", "\"" + UUID.randomUUID() + "\"");
+                exchange.sendResponseHeaders(200, -1);
+            } else if (method.equals("HEAD")) {
+                byte[] object = objects.get(key);
+                if (object != null) {
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                }
+                exchange.sendResponseHeaders(object != null ? 200 : 404, -1);
+            } else if (method.equals("GET")) {
+                get(exchange, key);
+            } else if (method.equals("DELETE")) {
+                objects.remove(key);
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                respond(exchange, 405, error("MethodNotAllowed", method));
+            }
+        }
+    }
+
+    private void uploadPart(HttpExchange exchange, Map<String, String> query, byte[] body) throws IOException {
+        int inFlight = partsInFlight.incrementAndGet();
+        maxPartsInFlight.accumulateAndGet(inFlight, Math::max);
+        try {
+            if (partDelayMillis > 0) {
+                Thread.sleep(partDelayMillis);
+            }
+            Map<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+            if (parts == null) {
+                respond(exchange, 404, error("NoSuchUpload", "The specified upload does not exist"));
+                return;
+            }
+            int partNumber = Integer.parseInt(query.get("partNumber"));
+            parts.put(partNumber, body);
+            exchange.getResponseHeaders().set("ETag", "\"part-" + partNumber + "\"");
+            exchange.sendResponseHeaders(200, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            partsInFlight.decrementAndGet();
+        }
+    }
+
+    private void completeUpload(HttpExchange exchange, String key, String uploadId, String body) throws IOException {
+        Map<Integer, byte[]> parts = uploads.remove(uploadId);
+        if (parts == null) {
+            respond(exchange, 404, error("NoSuchUpload", "The specified upload does not exist"));
+            return;
+        }
+        if (failCompletion) {
+            respond(exchange, 200, error("InternalError", "We encountered an internal error. Please try again."));
+            return;
+        }
+
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        Matcher partNumbers = PART_NUMBER.matcher(body);
+        int expected = 1;
+        while (partNumbers.find()) {
+            int partNumber = Integer.parseInt(partNumbers.group(1));
+            byte[] part = parts.get(partNumber);
+            if (partNumber != expected++ || part == null) {
+                respond(exchange, 400, error("InvalidPart", "Part " + partNumber + " is missing or out of order"));
+                return;
+            }
+            object.write(part);
+        }
+        objects.put(key, object.toByteArray());
+        respond(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">" +
+            "<Bucket>" + bucket + "</Bucket><Key>" + key + "</Key></CompleteMultipartUploadResult>");
+    }
+
+    private void get(HttpExchange exchange, String key) throws IOException {
+        byte[] object = objects.get(key);
+        if (object == null) {
+            respond(exchange, 404, error("NoSuchKey", "The specified key does not exist."));
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        int start = 0;
+        int end = object.length - 1;
+        if (range != null) {
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            start = Integer.parseInt(bounds[0]);
+            end = Math.min(Integer.parseInt(bounds[1]), object.length - 1);
+        }
+        exchange.sendResponseHeaders(range != null ? 206 : 200, end - start + 1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(object, start, end - start + 1);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] body = xml.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String error(String code, String message) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Error><Code>" + code + "</Code><Message>" + message +
+            "</Message><RequestId>fake</RequestId></Error>";
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            query.put(equals < 0 ? pair : pair.substring(0, equals), equals < 0 ? "" : pair.substring(equals + 1));
+        }
+        return query;
+    }
+}
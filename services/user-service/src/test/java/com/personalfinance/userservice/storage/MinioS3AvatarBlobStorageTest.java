@@ -0,0 +1,44 @@
+package com.personalfinance.userservice.storage;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The contract against a real S3 implementation; skipped where Docker is unavailable
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MinioS3AvatarBlobStorageTest extends S3AvatarBlobStorageContract {
+
+    @Container
+    static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2025-04-22T22-12-26Z");
+
+    private static S3AvatarBlobStorage storage;
+
+    @BeforeAll
+    static void createBucket() throws Exception {
+        URI endpoint = URI.create(MINIO.getS3URL());
+        URI bucket = URI.create(endpoint + "/" + BUCKET);
+        HttpRequest.Builder request = HttpRequest.newBuilder(bucket).PUT(HttpRequest.BodyPublishers.noBody());
+        new S3RequestSigner(MINIO.getUserName(), MINIO.getPassword(), "us-east-1")
+            .sign(request, "PUT", bucket, S3RequestSigner.EMPTY_PAYLOAD);
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            assertEquals(200, client.send(request.build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+
+        storage = storage(endpoint, MINIO.getUserName(), MINIO.getPassword(), 4);
+    }
+
+    @Override
+    S3AvatarBlobStorage storage() {
+        return storage;
+    }
+}
@@ -0,0 +1,139 @@
+package com.personalfinance.userservice.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour every S3 endpoint the avatar storage talks to must show, run against the fake and against MinIO
+ */
+abstract class S3AvatarBlobStorageContract {
+
+    static final String BUCKET = "avatars";
+    static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private final List<Path> files = new ArrayList<>();
+
+    abstract S3AvatarBlobStorage storage();
+
+    @AfterEach
+    void deleteFiles() throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void storedBlobReadsBack() throws Exception {
+        byte[] bytes = randomBytes(64 * 1024);
+        String address = sha256(bytes);
+
+        storage().put(address, file(bytes)).get(30, TimeUnit.SECONDS);
+
+        StoredBlob blob = storage().open(address).orElseThrow();
+        assertEquals(bytes.length, blob.size());
+        assertArrayEquals(bytes, read(blob, 0, bytes.length));
+    }
+
+    @Test
+    void rangeReadsReturnOnlyTheRange() throws Exception {
+        byte[] bytes = randomBytes(10_000);
+        String address = sha256(bytes);
+        storage().put(address, file(bytes)).get(30, TimeUnit.SECONDS);
+
+        byte[] range = read(storage().open(address).orElseThrow(), 1_000, 500);
+
+        assertArrayEquals(Arrays.copyOfRange(bytes, 1_000, 1_500), range);
+    }
+
+    @Test
+    void missingBlobIsEmpty() throws Exception {
+        assertFalse(storage().open(sha256(randomBytes(16))).isPresent());
+    }
+
+    @Test
+    void blobsLargerThanAPartAreUploadedInParts() throws Exception {
+        byte[] bytes = randomBytes(2 * PART_SIZE + 1024 * 1024);
+        String address = sha256(bytes);
+
+        storage().put(address, file(bytes)).get(60, TimeUnit.SECONDS);
+
+        StoredBlob blob = storage().open(address).orElseThrow();
+        assertEquals(bytes.length, blob.size());
+        assertArrayEquals(bytes, read(blob, 0, bytes.length));
+    }
+
+    @Test
+    void deletedBlobIsGone() throws Exception {
+        byte[] bytes = randomBytes(1024);
+        String address = sha256(bytes);
+        storage().put(address, file(bytes)).get(30, TimeUnit.SECONDS);
+
+        storage().delete(address);
+
+        assertFalse(storage().open(address).isPresent());
+    }
+
+    @Test
+    void deletingAMissingBlobSucceeds() throws Exception {
+        storage().delete(sha256(randomBytes(16)));
+    }
+
+    static S3AvatarBlobStorage storage(URI endpoint, String accessKey, String secretKey, int maxConcurrentParts) {
+        S3AvatarBlobStorage storage = new S3AvatarBlobStorage();
+        storage.endpoint = endpoint;
+        storage.region = "us-east-1";
+        storage.bucket = BUCKET;
+        storage.pathStyle = true;
+        storage.accessKey = accessKey;
+        storage.secretKey = secretKey;
+        storage.partSize = PART_SIZE;
+        storage.maxConcurrentParts = maxConcurrentParts;
+        storage.requestTimeout = Duration.ofSeconds(30);
+        storage.init();
+        return storage;
+    }
+
+    Path file(byte[] bytes) throws IOException {
+        Path file = Files.createTempFile("s3-contract-", ".bin");
+        files.add(file);
+        return Files.write(file, bytes);
+    }
+
+    static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    static String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    static byte[] read(StoredBlob blob, long offset, long length) throws IOException {
+        BlobBody body = blob.read(offset, length);
+        assertTrue(body instanceof BlobBody.Stream, "S3 reads should stream");
+        try (InputStream in = ((BlobBody.Stream) body).in()) {
+            return in.readAllBytes();
+        }
+    }
+}